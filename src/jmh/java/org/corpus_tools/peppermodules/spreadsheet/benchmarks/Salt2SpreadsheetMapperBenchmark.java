@@ -0,0 +1,198 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.peppermodules.spreadsheet.Salt2SpreadsheetMapper;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the export of a synthetic document graph with {@link Salt2SpreadsheetMapper} for
+ * each layout of the tokenizations, end to end and phase by phase. Since the phases fill the
+ * grid of the mapper, the phases before the measured one are run before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class Salt2SpreadsheetMapperBenchmark {
+
+	@Param({ "SIMPLE", "TIMELINE", "ORDER" })
+	public SyntheticDocumentGraph.Mode mode;
+
+	@Param({ "1000", "10000" })
+	public int tokens;
+
+	@Param({ "0", "4" })
+	public int spanTiers;
+
+	@Param({ "1", "4" })
+	public int annotations;
+
+	@Param({ "false", "true" })
+	public boolean streaming;
+
+	private SDocument document;
+	private SpreadsheetExporterProperties props;
+	private File outputFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		document = SaltFactory.createSDocument();
+		document.setName("benchmark");
+		document.setDocumentGraph(SyntheticDocumentGraph.create(mode, tokens, spanTiers, annotations, 42L));
+		props = new SpreadsheetExporterProperties();
+		props.setPropertyValue(SpreadsheetExporterProperties.PROP_IGNORE_ANNO_NAMES,
+				SyntheticDocumentGraph.SEGMENT_NAME);
+		props.setPropertyValue(SpreadsheetExporterProperties.PROP_STREAMING, streaming);
+		outputFile = File.createTempFile("salt2SpreadsheetBenchmark", ".xlsx");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		outputFile.delete();
+	}
+
+	/**
+	 * Gives access to the single phases of the mapper, which are protected.
+	 */
+	static class PhaseMapper extends Salt2SpreadsheetMapper {
+		PhaseMapper(Salt2SpreadsheetMapperBenchmark benchmark) {
+			setProperties(benchmark.props);
+			setDocument(benchmark.document);
+			setResourceURI(URI.createFileURI(benchmark.outputFile.getAbsolutePath()));
+		}
+
+		@Override
+		protected void readProperties() {
+			super.readProperties();
+		}
+
+		@Override
+		protected void mapTokenizations() {
+			super.mapTokenizations();
+		}
+
+		@Override
+		protected void mapSpansAndAnnotations() {
+			super.mapSpansAndAnnotations();
+		}
+
+		@Override
+		protected void writeWorkbook() {
+			super.writeWorkbook();
+		}
+	}
+
+	/**
+	 * the whole export of the document as done by the exporter
+	 */
+	@Benchmark
+	public Salt2SpreadsheetMapper mapSDocument() {
+		PhaseMapper mapper = new PhaseMapper(this);
+		mapper.mapSDocument();
+		return mapper;
+	}
+
+	/**
+	 * State with a mapper which has read the properties.
+	 */
+	@State(Scope.Thread)
+	public static class PropertiesState {
+		PhaseMapper mapper;
+
+		@Setup(Level.Invocation)
+		public void setUp(Salt2SpreadsheetMapperBenchmark benchmark) {
+			mapper = new PhaseMapper(benchmark);
+			mapper.readProperties();
+		}
+	}
+
+	/**
+	 * the layout of the tokenizations and the token annotations
+	 */
+	@Benchmark
+	public Salt2SpreadsheetMapper layout(PropertiesState state) {
+		state.mapper.mapTokenizations();
+		return state.mapper;
+	}
+
+	/**
+	 * State with a mapper which has laid out the tokenizations.
+	 */
+	@State(Scope.Thread)
+	public static class LayoutState {
+		PhaseMapper mapper;
+
+		@Setup(Level.Invocation)
+		public void setUp(Salt2SpreadsheetMapperBenchmark benchmark) {
+			mapper = new PhaseMapper(benchmark);
+			mapper.readProperties();
+			mapper.mapTokenizations();
+		}
+	}
+
+	@Benchmark
+	public Salt2SpreadsheetMapper spans(LayoutState state) {
+		state.mapper.mapSpansAndAnnotations();
+		return state.mapper;
+	}
+
+	/**
+	 * State with a mapper which has laid out the whole sheet.
+	 */
+	@State(Scope.Thread)
+	public static class WorkbookState {
+		PhaseMapper mapper;
+
+		@Setup(Level.Invocation)
+		public void setUp(Salt2SpreadsheetMapperBenchmark benchmark) {
+			mapper = new PhaseMapper(benchmark);
+			mapper.readProperties();
+			mapper.mapTokenizations();
+			mapper.mapSpansAndAnnotations();
+		}
+	}
+
+	@Benchmark
+	public Salt2SpreadsheetMapper writeWorkbook(WorkbookState state) {
+		state.mapper.writeWorkbook();
+		return state.mapper;
+	}
+}
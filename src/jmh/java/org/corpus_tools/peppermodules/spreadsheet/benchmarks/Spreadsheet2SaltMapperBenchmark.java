@@ -0,0 +1,262 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.corpus_tools.peppermodules.spreadsheet.AnnotationTierBuilder;
+import org.corpus_tools.peppermodules.spreadsheet.MergedRegionIndex;
+import org.corpus_tools.peppermodules.spreadsheet.PrimaryTextBuilder;
+import org.corpus_tools.peppermodules.spreadsheet.SheetRowHandler;
+import org.corpus_tools.peppermodules.spreadsheet.SheetTable;
+import org.corpus_tools.peppermodules.spreadsheet.Spreadsheet2SaltMapper;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetImporterProperties;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetReader;
+import org.corpus_tools.peppermodules.spreadsheet.StringPool;
+import org.corpus_tools.peppermodules.spreadsheet.TierMapping;
+import org.corpus_tools.peppermodules.spreadsheet.TierSchema;
+import org.corpus_tools.peppermodules.spreadsheet.TimelineTokenIndex;
+import org.corpus_tools.peppermodules.spreadsheet.WorkbookReader;
+import org.corpus_tools.peppermodules.spreadsheet.XlsxStreamingReader;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STimeline;
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the import of a synthetic workbook with {@link Spreadsheet2SaltMapper}, end to end
+ * and phase by phase. Each phase is measured on the results of the phases before it, which are
+ * prepared once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class Spreadsheet2SaltMapperBenchmark {
+
+	@Param({ "1000", "20000" })
+	public int rows;
+
+	@Param({ "4", "40" })
+	public int tiers;
+
+	@Param({ "1", "3" })
+	public int primaryTexts;
+
+	@Param({ "0.0", "0.3" })
+	public double mergedSpanRatio;
+
+	@Param({ "false", "true" })
+	public boolean streaming;
+
+	private File workbookFile;
+	private SpreadsheetImporterProperties props;
+
+	// results of the phases before the measured one
+	private SpreadsheetReader reader;
+	private SheetTable sheet;
+	private TierSchema tierSchema;
+	private MergedRegionIndex mergedCells;
+	private List<PrimaryTextBuilder> primTextBuilders;
+	private List<AnnotationTierBuilder> annoBuilders;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		workbookFile = File.createTempFile("spreadsheet2SaltBenchmark", ".xlsx");
+		SyntheticWorkbook.write(workbookFile, rows, tiers, primaryTexts, mergedSpanRatio, 42L);
+
+		props = new SpreadsheetImporterProperties();
+		props.setPropertyValue(SpreadsheetImporterProperties.PROP_PRIMARY_TEXT,
+				SyntheticWorkbook.getPrimaryTextProperty(primaryTexts));
+		props.setPropertyValue(SpreadsheetImporterProperties.PROP_META_ANNO, false);
+		props.setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, streaming);
+
+		reader = openReader();
+		sheet = reader.getSheet(0);
+		tierSchema = buildTierSchema();
+		mergedCells = new MergedRegionIndex(sheet.getMergedRegions());
+		readRows();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		reader.close();
+		workbookFile.delete();
+	}
+
+	private SpreadsheetReader openReader() throws IOException {
+		return streaming ? new XlsxStreamingReader(workbookFile) : new WorkbookReader(workbookFile);
+	}
+
+	private TierSchema buildTierSchema() {
+		return TierSchema.build(sheet.getRowValues(0), TierMapping.compile(props), props.getParseNamespace(),
+				workbookFile.getName(), StringPool.NONE);
+	}
+
+	/**
+	 * the row pass of the mapper, which fills the builders of all tiers
+	 */
+	private void readRows() {
+		primTextBuilders = new ArrayList<>();
+		for (TierSchema.Tier tier : tierSchema.getPrimaryTextTiers()) {
+			primTextBuilders.add(new PrimaryTextBuilder(tier, props.getIncludeEmptyPrimCells()));
+		}
+		annoBuilders = new ArrayList<>();
+		for (TierSchema.Tier tier : tierSchema.getAnnotationTiers()) {
+			annoBuilders.add(new AnnotationTierBuilder(tier));
+		}
+		for (int rowNum = 1; rowNum < sheet.getPhysicalNumberOfRows(); rowNum++) {
+			String[] row = sheet.getRowValues(rowNum);
+			if (row == null) {
+				continue;
+			}
+			for (PrimaryTextBuilder builder : primTextBuilders) {
+				int column = builder.getTier().getColumn();
+				builder.addCell(rowNum, column < row.length ? row[column] : null);
+			}
+			for (AnnotationTierBuilder builder : annoBuilders) {
+				int column = builder.getTier().getColumn();
+				builder.addCell(rowNum, column < row.length ? row[column] : null);
+			}
+		}
+	}
+
+	private SDocumentGraph createGraph() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STimeline timeline = SaltFactory.createSTimeline();
+		graph.setTimeline(timeline);
+		timeline.increasePointOfTime(sheet.getLastRowNum());
+		return graph;
+	}
+
+	private SDocumentGraph commitPrimaryTexts() {
+		SDocumentGraph graph = createGraph();
+		for (PrimaryTextBuilder builder : primTextBuilders) {
+			builder.commit(graph, props.getAddOrderRelation(), mergedCells, sheet.getLastRowNum());
+		}
+		return graph;
+	}
+
+	/**
+	 * the whole import of the document as done by the importer
+	 */
+	@Benchmark
+	public SDocument mapSDocument() {
+		Spreadsheet2SaltMapper mapper = new Spreadsheet2SaltMapper();
+		mapper.setProperties(props);
+		SDocument document = SaltFactory.createSDocument();
+		document.setName("benchmark");
+		mapper.setDocument(document);
+		mapper.setResourceURI(URI.createFileURI(workbookFile.getAbsolutePath()));
+		mapper.mapSDocument();
+		return document;
+	}
+
+	/**
+	 * opening the file and passing the rows of the corpus sheet on, with the user model or the event
+	 * model of POI
+	 */
+	@Benchmark
+	public void openSheet(Blackhole blackhole) throws IOException {
+		try (SpreadsheetReader benchmarkReader = openReader()) {
+			benchmarkReader.readSheet(0, new SheetRowHandler() {
+				@Override
+				public void row(int rowNum, String[] values) {
+					blackhole.consume(values);
+				}
+
+				@Override
+				public void mergedRegion(CellRangeAddress region) {
+					blackhole.consume(region);
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public TierSchema header() {
+		return buildTierSchema();
+	}
+
+	@Benchmark
+	public MergedRegionIndex mergedIndex() {
+		return new MergedRegionIndex(sheet.getMergedRegions());
+	}
+
+	@Benchmark
+	public List<AnnotationTierBuilder> rows() {
+		readRows();
+		return annoBuilders;
+	}
+
+	@Benchmark
+	public SDocumentGraph primaryText() {
+		return commitPrimaryTexts();
+	}
+
+	/**
+	 * State with the primary texts already created, which is prepared before each invocation since
+	 * the annotations change the graph.
+	 */
+	@State(Scope.Thread)
+	public static class PrimaryTextState {
+		SDocumentGraph graph;
+
+		@Setup(Level.Invocation)
+		public void setUp(Spreadsheet2SaltMapperBenchmark benchmark) {
+			graph = benchmark.commitPrimaryTexts();
+		}
+	}
+
+	@Benchmark
+	public SDocumentGraph annotations(PrimaryTextState state) {
+		for (AnnotationTierBuilder builder : annoBuilders) {
+			TimelineTokenIndex tokenIndex = null;
+			for (PrimaryTextBuilder primTextBuilder : primTextBuilders) {
+				if (primTextBuilder.getTier().getColumn() == builder.getTier().getPrimaryTextColumn()) {
+					tokenIndex = primTextBuilder.getTokenIndex();
+				}
+			}
+			builder.resolveTokens(tokenIndex, mergedCells);
+			builder.commit(state.graph);
+		}
+		return state.graph;
+	}
+}
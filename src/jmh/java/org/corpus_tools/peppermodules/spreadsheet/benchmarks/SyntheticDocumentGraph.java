@@ -0,0 +1,153 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SStructuredNode;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STimeline;
+import org.corpus_tools.salt.common.STimelineRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Creates document graphs of arbitrary size for each way the SpreadsheetExporter lays out the
+ * tokenizations of a document. Every token of the main tokenization carries the annotations 'pos1',
+ * 'pos2', ... and the span tiers 'span1', 'span2', ... cover two to four consecutive tokens each. The
+ * content only depends on the parameters and the seed.
+ */
+public final class SyntheticDocumentGraph {
+
+	/**
+	 * The layouts of the tokenizations, chosen by the exporter from the relations of the graph.
+	 */
+	public enum Mode {
+		/** a single tokenization without timeline or order relations, one token per row */
+		SIMPLE,
+		/** two primary texts aligned by a timeline, the tokens of the second one cover two points */
+		TIMELINE,
+		/** one primary text with two order relation chains over the tokens and over segment spans */
+		ORDER
+	}
+
+	/** name of the order relations and the annotation of the segments in mode {@link Mode#ORDER} */
+	public static final String SEGMENT_NAME = "seg";
+
+	private static final String TOKEN_NAME = "tok";
+	private static final String SECOND_TOKEN_NAME = "tok2";
+
+	private SyntheticDocumentGraph() {
+	}
+
+	/**
+	 * @param mode layout of the tokenizations
+	 * @param tokens number of tokens of the main tokenization
+	 * @param spanTiers number of span annotation tiers
+	 * @param annotations number of annotations of each token of the main tokenization
+	 * @param seed seed of the random numbers
+	 * @return the created graph
+	 */
+	public static SDocumentGraph create(Mode mode, int tokens, int spanTiers, int annotations, long seed) {
+		Random random = new Random(seed);
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STimeline timeline = null;
+		if (mode == Mode.TIMELINE) {
+			timeline = graph.createTimeline();
+			timeline.increasePointOfTime(tokens);
+		}
+		List<SToken> tokenList = createTokens(graph, TOKEN_NAME, tokens, 1, timeline);
+		if (mode == Mode.TIMELINE) {
+			createTokens(graph, SECOND_TOKEN_NAME, (tokens + 1) / 2, 2, timeline);
+		} else if (mode == Mode.ORDER) {
+			createOrderRelations(graph, tokenList, TOKEN_NAME);
+			List<SStructuredNode> segments = new ArrayList<>();
+			for (int i = 0; i < tokenList.size(); i += 2) {
+				List<SToken> segmentTokens = tokenList.subList(i, Math.min(i + 2, tokenList.size()));
+				SSpan segment = graph.createSpan(segmentTokens);
+				segment.createAnnotation(null, SEGMENT_NAME, "s" + i);
+				segments.add(segment);
+			}
+			createOrderRelations(graph, segments, SEGMENT_NAME);
+		}
+		for (int i = 0; i < tokenList.size(); i++) {
+			for (int anno = 1; anno <= annotations; anno++) {
+				tokenList.get(i).createAnnotation(null, "pos" + anno, "p" + anno + "_" + i);
+			}
+		}
+		for (int tier = 1; tier <= spanTiers; tier++) {
+			int first = 0;
+			while (first < tokenList.size()) {
+				int last = Math.min(first + 2 + random.nextInt(3), tokenList.size());
+				graph.createSpan(tokenList.subList(first, last)).createAnnotation(null, "span" + tier,
+						"s" + tier + "_" + first);
+				first = last;
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Creates a primary text with the given number of tokens, each covering the given number of points
+	 * of the timeline if there is one.
+	 */
+	private static List<SToken> createTokens(SDocumentGraph graph, String name, int tokens,
+			int pointsPerToken, STimeline timeline) {
+		StringBuilder text = new StringBuilder();
+		int[] offsets = new int[tokens + 1];
+		for (int i = 0; i < tokens; i++) {
+			offsets[i] = text.length();
+			text.append("w").append(i).append(' ');
+		}
+		offsets[tokens] = text.length();
+		STextualDS ds = graph.createTextualDS(text.toString());
+		ds.setName(name);
+		List<SToken> tokenList = new ArrayList<>(tokens);
+		for (int i = 0; i < tokens; i++) {
+			SToken token = graph.createToken(ds, offsets[i], offsets[i + 1] - 1);
+			tokenList.add(token);
+			if (timeline != null) {
+				STimelineRelation timeRel = SaltFactory.createSTimelineRelation();
+				timeRel.setSource(token);
+				timeRel.setTarget(timeline);
+				timeRel.setStart(i * pointsPerToken);
+				timeRel.setEnd(Math.min((i + 1) * pointsPerToken, timeline.getEnd()));
+				graph.addRelation(timeRel);
+			}
+		}
+		return tokenList;
+	}
+
+	/**
+	 * Chains the nodes by order relations of the given type, in the order of the list.
+	 */
+	private static void createOrderRelations(SDocumentGraph graph, List<? extends SStructuredNode> nodes, String type) {
+		for (int i = 1; i < nodes.size(); i++) {
+			SOrderRelation orderRel = SaltFactory.createSOrderRelation();
+			orderRel.setSource(nodes.get(i - 1));
+			orderRel.setTarget(nodes.get(i));
+			orderRel.setType(type);
+			graph.addRelation(orderRel);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes corpus sheets of arbitrary size in the layout expected by the SpreadsheetImporter. The
+ * first columns hold the primary texts 'tok1', 'tok2', ..., followed by the annotation columns
+ * 'anno1[tok1]', 'anno2[tok2]', ... which refer to the primary texts in turn. Annotation cells start
+ * a merged span over two to four rows with the given probability. The content only depends on the
+ * parameters and the seed.
+ */
+public final class SyntheticWorkbook {
+
+	private SyntheticWorkbook() {
+	}
+
+	/**
+	 * @param primaryTexts number of primary text columns
+	 * @return the value of the property 'primText' for a workbook with the given number of primary
+	 *         texts
+	 */
+	public static String getPrimaryTextProperty(int primaryTexts) {
+		StringBuilder property = new StringBuilder();
+		for (int i = 1; i <= primaryTexts; i++) {
+			if (i > 1) {
+				property.append(", ");
+			}
+			property.append("tok").append(i);
+		}
+		return property.toString();
+	}
+
+	/**
+	 * Writes a xlsx workbook with a single corpus sheet.
+	 *
+	 * @param file the file to write to
+	 * @param rows number of rows below the header
+	 * @param tiers number of annotation columns
+	 * @param primaryTexts number of primary text columns, at least 1
+	 * @param mergedSpanRatio probability of an annotation cell to start a merged span
+	 * @param seed seed of the random numbers
+	 * @return the given file
+	 * @throws IOException
+	 */
+	public static File write(File file, int rows, int tiers, int primaryTexts, double mergedSpanRatio,
+			long seed) throws IOException {
+		Random random = new Random(seed);
+		// keep only a window of rows in memory, the merged regions are kept in any case
+		try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+			SXSSFSheet sheet = workbook.createSheet("corpus");
+			Row header = sheet.createRow(0);
+			for (int prim = 0; prim < primaryTexts; prim++) {
+				header.createCell(prim).setCellValue("tok" + (prim + 1));
+			}
+			for (int tier = 0; tier < tiers; tier++) {
+				header.createCell(primaryTexts + tier)
+						.setCellValue("anno" + (tier + 1) + "[tok" + (tier % primaryTexts + 1) + "]");
+			}
+
+			// row in which the current merged span of each annotation column ends
+			int[] spanEnds = new int[tiers];
+			for (int rowNum = 1; rowNum <= rows; rowNum++) {
+				Row row = sheet.createRow(rowNum);
+				for (int prim = 0; prim < primaryTexts; prim++) {
+					row.createCell(prim).setCellValue("w" + rowNum + "_" + (prim + 1));
+				}
+				for (int tier = 0; tier < tiers; tier++) {
+					if (rowNum <= spanEnds[tier]) {
+						// covered by a merged span
+						continue;
+					}
+					int column = primaryTexts + tier;
+					row.createCell(column).setCellValue("a" + (tier + 1) + "_" + rowNum);
+					if (random.nextDouble() < mergedSpanRatio) {
+						int lastRow = Math.min(rowNum + 1 + random.nextInt(3), rows);
+						if (lastRow > rowNum) {
+							// the spans of a column never overlap, so the check of the regions is not needed
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowNum, lastRow, column, column));
+							spanEnds[tier] = lastRow;
+						}
+					}
+				}
+			}
+			try (OutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+			workbook.dispose();
+		}
+		return file;
+	}
+}
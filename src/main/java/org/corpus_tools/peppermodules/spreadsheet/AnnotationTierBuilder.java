@@ -0,0 +1,127 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Collects the cells of an annotation column row by row and creates the annotated spans in the
+ * document graph, once the tokens of the primary text exist.
+ */
+public class AnnotationTierBuilder {
+
+	private final TierSchema.Tier tier;
+
+	/** first point of time and value of each annotation */
+	private int[] starts = new int[16];
+	private String[] values = new String[16];
+	private int size = 0;
+	/** the tokens of each annotation, see {@link #resolveTokens(TimelineTokenIndex)} */
+	private List<List<SToken>> tokensOfSpans = null;
+
+	/**
+	 * @param tier the annotation tier
+	 */
+	public AnnotationTierBuilder(TierSchema.Tier tier) {
+		this.tier = tier;
+	}
+
+	public TierSchema.Tier getTier() {
+		return tier;
+	}
+
+	/**
+	 * Adds the cell of the annotation column in the given row, empty cells are ignored. The rows have
+	 * to be added in ascending order.
+	 *
+	 * @param rowNum (0-based) index of the row, the first row holds the header
+	 * @param value formatted value of the cell, null if the cell does not exist
+	 */
+	public void addCell(int rowNum, String value) {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		starts[size] = rowNum - 1;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Removes the annotations of the given row and the rows following it.
+	 *
+	 * @param rowNum (0-based) index of the first row to remove
+	 */
+	public void removeRowsFrom(int rowNum) {
+		while (size > 0 && starts[size - 1] >= rowNum - 1) {
+			values[--size] = null;
+		}
+	}
+
+	/**
+	 * Looks up the tokens of the primary text covered by each collected annotation, an annotation ends
+	 * with the merged region of its cell. The document graph is not accessed, so the builders of
+	 * different tiers may resolve their tokens in parallel.
+	 *
+	 * @param tokenIndex the tokens of the primary text, null if the primary text has no tokens
+	 * @param mergedCells the merged regions of the sheet
+	 */
+	public void resolveTokens(TimelineTokenIndex tokenIndex, MergedRegionIndex mergedCells) {
+		List<List<SToken>> resolved = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int end = mergedCells.getLastRow(starts[i] + 1, tier.getColumn());
+			resolved.add(tokenIndex == null ? Collections.<SToken>emptyList()
+					: tokenIndex.getTokens(starts[i], end));
+		}
+		tokensOfSpans = resolved;
+	}
+
+	/**
+	 * Creates an annotated span for each collected annotation over the tokens of its primary text.
+	 * The tokens have to be resolved before.
+	 *
+	 * @param graph
+	 * @return the created spans
+	 */
+	public List<SSpan> commit(SDocumentGraph graph) {
+		if (tokensOfSpans == null) {
+			throw new IllegalStateException("The tokens of the tier '" + tier.getName()
+					+ "' have not been resolved.");
+		}
+		List<SSpan> spans = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			SSpan annoSpan = graph.createSpan(tokensOfSpans.get(i));
+			if (annoSpan != null) {
+				annoSpan.createAnnotation(tier.getNamespace(), tier.getLocalName(), values[i]);
+				annoSpan.setName(tier.getName());
+				spans.add(annoSpan);
+			}
+		}
+		return spans;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * A {@link SheetTable} holding nothing but the formatted cell values and merged regions of a sheet.
+ * It is filled by readers, which do not build a POI user model, e.g. by event based readers for
+ * the first rows or the meta data of a sheet.
+ */
+public class BufferedSheetTable implements SheetTable, SheetRowHandler {
+
+	private final String name;
+	/** cell values by row and column, a row is null if it was never started */
+	private final List<String[]> rows = new ArrayList<>();
+	private final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+	private int physicalNumberOfRows = 0;
+
+	public BufferedSheetTable(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Marks the row as defined, even if it does not contain any cell.
+	 * 
+	 * @param rowNum (0-based) index of the row
+	 */
+	public void startRow(int rowNum) {
+		while (rows.size() <= rowNum) {
+			rows.add(null);
+		}
+		if (rows.get(rowNum) == null) {
+			rows.set(rowNum, new String[0]);
+			physicalNumberOfRows++;
+		}
+	}
+
+	/**
+	 * @param rowNum (0-based) index of the row
+	 * @param colNum (0-based) index of the column
+	 * @param value formatted value of the cell
+	 */
+	public void setCellValue(int rowNum, int colNum, String value) {
+		startRow(rowNum);
+		String[] row = rows.get(rowNum);
+		if (row.length <= colNum) {
+			row = Arrays.copyOf(row, colNum + 1);
+			rows.set(rowNum, row);
+		}
+		row[colNum] = value;
+	}
+
+	public void addMergedRegion(CellRangeAddress region) {
+		mergedRegions.add(region);
+	}
+
+	@Override
+	public void row(int rowNum, String[] values) {
+		startRow(rowNum);
+		rows.set(rowNum, values);
+	}
+
+	@Override
+	public void mergedRegion(CellRangeAddress region) {
+		addMergedRegion(region);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int getLastRowNum() {
+		for (int rowNum = rows.size() - 1; rowNum >= 0; rowNum--) {
+			if (rows.get(rowNum) != null) {
+				return rowNum;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public int getPhysicalNumberOfRows() {
+		return physicalNumberOfRows;
+	}
+
+	@Override
+	public int getPhysicalNumberOfCells(int rowNum) {
+		int cells = 0;
+		if (hasRow(rowNum)) {
+			for (String value : rows.get(rowNum)) {
+				if (value != null) {
+					cells++;
+				}
+			}
+		}
+		return cells;
+	}
+
+	@Override
+	public int getLastCellNum(int rowNum) {
+		return hasRow(rowNum) ? rows.get(rowNum).length : 0;
+	}
+
+	@Override
+	public boolean hasRow(int rowNum) {
+		return rowNum >= 0 && rowNum < rows.size() && rows.get(rowNum) != null;
+	}
+
+	@Override
+	public String getCellValue(int rowNum, int colNum) {
+		if (!hasRow(rowNum)) {
+			return null;
+		}
+		String[] row = rows.get(rowNum);
+		return colNum < row.length ? row[colNum] : null;
+	}
+
+	@Override
+	public String[] getRowValues(int rowNum) {
+		return hasRow(rowNum) ? rows.get(rowNum) : null;
+	}
+
+	@Override
+	public List<CellRangeAddress> getMergedRegions() {
+		return Collections.unmodifiableList(mergedRegions);
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+/**
+ * Finds the spreadsheet documents in a directory tree. The directories are listed in parallel and
+ * the files of large directories are checked in batches in parallel, too. Workbooks are recognized
+ * by the signature at the start of the file (ZIP for xlsx, OLE2 for xls) instead of their ending
+ * alone, so damaged or misnamed files are skipped. Lock files of office programs (<code>~$</code>)
+ * and hidden files are skipped without being read. Each document is passed to the consumer as soon
+ * as it is found, on the thread which found it.
+ */
+public class CorpusDiscovery {
+
+	/** prefix of the lock files office programs create next to an opened workbook */
+	public static final String LOCK_FILE_PREFIX = "~$";
+	/** endings of files which are checked for a workbook signature, files without ending are checked, too */
+	private static final Set<String> WORKBOOK_ENDINGS = new HashSet<>(Arrays.asList("xlsx", "xlsm", "xls"));
+	/** number of files checked by one task */
+	private static final int FILE_BATCH_SIZE = 32;
+
+	private final int threads;
+
+	/**
+	 * @param threads number of threads listing directories and checking files
+	 */
+	public CorpusDiscovery(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param root a directory or a single file
+	 * @param documents consumer of the found documents, it is called concurrently
+	 * @return the number of found documents
+	 * @throws IOException if the root does not exist
+	 */
+	public int discover(Path root, Consumer<Path> documents) throws IOException {
+		if (Files.isRegularFile(root)) {
+			if (isDocument(root)) {
+				documents.accept(root);
+				return 1;
+			}
+			return 0;
+		}
+		if (!Files.isDirectory(root)) {
+			throw new IOException("The corpus path '" + root + "' is neither a directory nor a file.");
+		}
+		AtomicInteger found = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new DirectoryTask(root, documents, found));
+		} finally {
+			pool.shutdown();
+		}
+		return found.get();
+	}
+
+	/**
+	 * @param file
+	 * @return true, if the file is a csv or tsv file or starts with the signature of a workbook
+	 */
+	public static boolean isDocument(Path file) {
+		String name = file.getFileName().toString();
+		if (isSkipped(name)) {
+			return false;
+		}
+		String ending = FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT);
+		if (DelimitedTextReader.CSV_ENDING.equals(ending) || DelimitedTextReader.TSV_ENDING.equals(ending)) {
+			return true;
+		}
+		if (!ending.isEmpty() && !WORKBOOK_ENDINGS.contains(ending)) {
+			return false;
+		}
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+			FileMagic fileMagic = FileMagic.valueOf(in);
+			return fileMagic == FileMagic.OOXML || fileMagic == FileMagic.OLE2;
+		} catch (IOException e) {
+			SpreadsheetImporter.logger.warn("Could not read the file '{}', it is skipped.", file);
+			return false;
+		}
+	}
+
+	/**
+	 * @param name
+	 * @return true for lock files and hidden files
+	 */
+	private static boolean isSkipped(String name) {
+		return name.startsWith(LOCK_FILE_PREFIX) || name.startsWith(".");
+	}
+
+	/**
+	 * Lists a directory, checks its files and walks its subdirectories.
+	 */
+	private static class DirectoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Path directory;
+		private final Consumer<Path> documents;
+		private final AtomicInteger found;
+
+		private DirectoryTask(Path directory, Consumer<Path> documents, AtomicInteger found) {
+			this.directory = directory;
+			this.documents = documents;
+			this.found = found;
+		}
+
+		@Override
+		protected void compute() {
+			List<RecursiveAction> tasks = new ArrayList<>();
+			List<Path> files = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					if (isSkipped(entry.getFileName().toString())) {
+						continue;
+					}
+					// links to directories are not followed to avoid cycles
+					BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+							LinkOption.NOFOLLOW_LINKS);
+					if (attributes.isDirectory()) {
+						tasks.add(new DirectoryTask(entry, documents, found));
+					} else {
+						files.add(entry);
+						if (files.size() == FILE_BATCH_SIZE) {
+							tasks.add(new FileBatchTask(files, documents, found));
+							files = new ArrayList<>();
+						}
+					}
+				}
+			} catch (IOException e) {
+				SpreadsheetImporter.logger.warn("Could not list the directory '" + directory + "'.", e);
+			}
+			if (!files.isEmpty()) {
+				tasks.add(new FileBatchTask(files, documents, found));
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Checks files and passes the documents to the consumer.
+	 */
+	private static class FileBatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<Path> files;
+		private final Consumer<Path> documents;
+		private final AtomicInteger found;
+
+		private FileBatchTask(List<Path> files, Consumer<Path> documents, AtomicInteger found) {
+			this.files = files;
+			this.documents = documents;
+			this.found = found;
+		}
+
+		@Override
+		protected void compute() {
+			for (Path file : files) {
+				if (Files.isRegularFile(file) && isDocument(file)) {
+					found.incrementAndGet();
+					documents.accept(file);
+				}
+			}
+		}
+	}
+}
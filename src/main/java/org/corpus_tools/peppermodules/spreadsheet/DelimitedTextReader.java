@@ -0,0 +1,264 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * A {@link SpreadsheetReader} for delimited text files (csv and tsv), which does not use POI at
+ * all. The file is tokenized in a single pass and forms the only sheet of the document, whatever
+ * sheet name is requested. Each record is passed on as a row as soon as it is read. Since delimited
+ * text has no merged cells, a cell containing the unquoted continuation marker continues the cell
+ * above it in the same column, the merged region of such a run is passed on when the run ends. A
+ * quoted marker is read as a value.
+ * <br/>
+ * Fields of csv files can be quoted as defined by RFC 4180, tsv files are not quoted at all, so
+ * that tokens like '"' can be used as they are.
+ */
+public class DelimitedTextReader implements SpreadsheetReader {
+
+	public static final String CSV_ENDING = "csv";
+	public static final String TSV_ENDING = "tsv";
+	private static final char CSV_DELIMITER = ',';
+	private static final char TSV_DELIMITER = '\t';
+	private static final char QUOTE = '"';
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private final File file;
+	private final char delimiter;
+	private final boolean quoting;
+	private final String continuationMarker;
+	private final String sheetName;
+
+	/**
+	 * @param file the csv or tsv file, the delimiter is chosen by its ending
+	 * @param continuationMarker the cell value continuing the cell above, null if cells cannot be
+	 *        continued
+	 */
+	public DelimitedTextReader(File file, String continuationMarker) {
+		this.file = file;
+		boolean tsv = TSV_ENDING.equalsIgnoreCase(FilenameUtils.getExtension(file.getName()));
+		this.delimiter = tsv ? TSV_DELIMITER : CSV_DELIMITER;
+		this.quoting = !tsv;
+		this.continuationMarker = continuationMarker == null || continuationMarker.isEmpty() ? null
+				: continuationMarker;
+		this.sheetName = FilenameUtils.getBaseName(file.getName());
+	}
+
+	/**
+	 * @param file
+	 * @return true, if the file is a csv or tsv file judged by its ending
+	 */
+	public static boolean isDelimitedText(File file) {
+		String ending = FilenameUtils.getExtension(file.getName());
+		return CSV_ENDING.equalsIgnoreCase(ending) || TSV_ENDING.equalsIgnoreCase(ending);
+	}
+
+	@Override
+	public List<String> getSheetNames() {
+		return Collections.singletonList(sheetName);
+	}
+
+	@Override
+	public SheetTable getSheet(int index) throws IOException {
+		return index == 0 ? read(Integer.MAX_VALUE) : null;
+	}
+
+	@Override
+	public SheetTable getSheet(String name) throws IOException {
+		return read(Integer.MAX_VALUE);
+	}
+
+	@Override
+	public SheetTable getSheet(int index, int maxRows) throws IOException {
+		return index == 0 ? read(maxRows) : null;
+	}
+
+	@Override
+	public SheetTable getSheet(String name, int maxRows) throws IOException {
+		return read(maxRows);
+	}
+
+	@Override
+	public boolean readSheet(int index, SheetRowHandler handler) throws IOException {
+		if (index != 0) {
+			return false;
+		}
+		read(handler, Integer.MAX_VALUE);
+		return true;
+	}
+
+	@Override
+	public boolean readSheet(String name, SheetRowHandler handler) throws IOException {
+		read(handler, Integer.MAX_VALUE);
+		return true;
+	}
+
+	/**
+	 * @param maxRows the number of records to read at most
+	 */
+	private SheetTable read(int maxRows) throws IOException {
+		BufferedSheetTable table = new BufferedSheetTable(sheetName);
+		read(table, maxRows);
+		return table;
+	}
+
+	/**
+	 * @param handler receives the records as rows
+	 * @param maxRows the number of records to read at most
+	 */
+	private void read(SheetRowHandler handler, int maxRows) throws IOException {
+		// first and last row of the current run of continued cells per column
+		int[] runStart = new int[0];
+		int[] runEnd = new int[0];
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			skipByteOrderMark(reader);
+			List<String> fields = new ArrayList<>();
+			BitSet quoted = new BitSet();
+			int rowNum = 0;
+			while (rowNum < maxRows && readRecord(reader, fields, quoted)) {
+				if (runStart.length < fields.size()) {
+					int oldLength = runStart.length;
+					runStart = Arrays.copyOf(runStart, fields.size());
+					runEnd = Arrays.copyOf(runEnd, fields.size());
+					Arrays.fill(runStart, oldLength, runStart.length, -1);
+					Arrays.fill(runEnd, oldLength, runEnd.length, -1);
+				}
+				String[] values = new String[fields.size()];
+				for (int colNum = 0; colNum < fields.size(); colNum++) {
+					String value = fields.get(colNum);
+					if (continuationMarker != null && continuationMarker.equals(value) && !quoted.get(colNum)
+							&& runStart[colNum] > 0) {
+						runEnd[colNum] = rowNum;
+						value = "";
+					} else {
+						passMergedRegion(handler, runStart[colNum], runEnd[colNum], colNum);
+						// the header row cannot be continued
+						runStart[colNum] = rowNum > 0 ? rowNum : -1;
+						runEnd[colNum] = runStart[colNum];
+					}
+					values[colNum] = value;
+				}
+				// a short record ends the runs of its missing columns
+				for (int colNum = fields.size(); colNum < runStart.length; colNum++) {
+					passMergedRegion(handler, runStart[colNum], runEnd[colNum], colNum);
+					runStart[colNum] = -1;
+					runEnd[colNum] = -1;
+				}
+				handler.row(rowNum, values);
+				rowNum++;
+			}
+		}
+		for (int colNum = 0; colNum < runStart.length; colNum++) {
+			passMergedRegion(handler, runStart[colNum], runEnd[colNum], colNum);
+		}
+	}
+
+	private void passMergedRegion(SheetRowHandler handler, int firstRow, int lastRow, int colNum) {
+		if (firstRow >= 0 && lastRow > firstRow) {
+			handler.mergedRegion(new CellRangeAddress(firstRow, lastRow, colNum, colNum));
+		}
+	}
+
+	private void skipByteOrderMark(BufferedReader reader) throws IOException {
+		reader.mark(1);
+		if (reader.read() != BYTE_ORDER_MARK) {
+			reader.reset();
+		}
+	}
+
+	/**
+	 * Reads the fields of the next record.
+	 * 
+	 * @param reader
+	 * @param fields is cleared and filled with the fields of the record
+	 * @param quoted is cleared and filled with the indexes of the quoted fields
+	 * @return false, if the end of the file was reached before the record started
+	 * @throws IOException
+	 */
+	private boolean readRecord(BufferedReader reader, List<String> fields, BitSet quoted)
+			throws IOException {
+		fields.clear();
+		quoted.clear();
+		StringBuilder field = new StringBuilder();
+		boolean inQuotes = false;
+		boolean wasQuoted = false;
+		boolean recordStarted = false;
+		int c;
+		while ((c = reader.read()) != -1) {
+			recordStarted = true;
+			if (inQuotes) {
+				if (c == QUOTE) {
+					reader.mark(1);
+					if (reader.read() == QUOTE) {
+						// escaped quote
+						field.append(QUOTE);
+					} else {
+						reader.reset();
+						inQuotes = false;
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (quoting && c == QUOTE && field.length() == 0 && !wasQuoted) {
+				inQuotes = true;
+				wasQuoted = true;
+			} else if (c == delimiter) {
+				quoted.set(fields.size(), wasQuoted);
+				fields.add(field.toString());
+				field.setLength(0);
+				wasQuoted = false;
+			} else if (c == '\n') {
+				break;
+			} else if (c == '\r') {
+				reader.mark(1);
+				if (reader.read() != '\n') {
+					reader.reset();
+				}
+				break;
+			} else {
+				field.append((char) c);
+			}
+		}
+		if (!recordStarted) {
+			return false;
+		}
+		quoted.set(fields.size(), wasQuoted);
+		fields.add(field.toString());
+		return true;
+	}
+
+	@Override
+	public void close() {
+		// the file is only opened while a sheet is read
+	}
+}
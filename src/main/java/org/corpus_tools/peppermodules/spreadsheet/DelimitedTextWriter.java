@@ -0,0 +1,148 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.MergedCellsValue;
+
+/**
+ * Writes a {@link SheetGrid} as delimited text (csv or tsv) row by row, in the format read by
+ * {@link DelimitedTextReader}. Each record has a field for each column of the grid and rows without
+ * any cell are written as empty records, so that the rows keep their positions. Since delimited text
+ * has no merged cells, the cells below the first cell of an entry are left blank, repeat its value
+ * or hold the continuation marker.
+ * <br/>
+ * Fields of csv files are quoted as defined by RFC 4180 if necessary, tsv files are not quoted at
+ * all, so tabs and line breaks in values are replaced by spaces. Values of csv files equal to the
+ * continuation marker are quoted as well, since {@link DelimitedTextReader} only reads an unquoted
+ * marker as a continued cell. In tsv files such values cannot be told apart from continued cells.
+ */
+public class DelimitedTextWriter implements SheetGrid.CellVisitor {
+
+	private static final char CSV_DELIMITER = ',';
+	private static final char TSV_DELIMITER = '\t';
+	private static final char QUOTE = '"';
+	private static final String LINE_SEPARATOR = "\n";
+	private static final String DEFAULT_CONTINUATION_MARKER = "^";
+
+	private final Writer out;
+	private final boolean tsv;
+	private final char delimiter;
+	private final int columnCount;
+	private final MergedCellsValue mergedCells;
+	private final String continuationMarker;
+	/** index of the next row to write */
+	private int nextRowIx = 0;
+	/** index of the next column to write in the current row */
+	private int nextColIx = 0;
+
+	/**
+	 * @param out the writer, should be buffered
+	 * @param tsv true for tsv, false for csv
+	 * @param columnCount the number of fields of each record
+	 * @param mergedCells how the cells below the first cell of an entry are written
+	 * @param continuationMarker the value of these cells, if they are written as continued cells, "^"
+	 *        if null or empty
+	 */
+	public DelimitedTextWriter(Writer out, boolean tsv, int columnCount, MergedCellsValue mergedCells,
+			String continuationMarker) {
+		this.out = out;
+		this.tsv = tsv;
+		this.delimiter = tsv ? TSV_DELIMITER : CSV_DELIMITER;
+		this.columnCount = columnCount;
+		this.mergedCells = mergedCells;
+		this.continuationMarker = continuationMarker == null || continuationMarker.isEmpty()
+				? DEFAULT_CONTINUATION_MARKER : continuationMarker;
+	}
+
+	@Override
+	public void startRow(int rowIx) throws IOException {
+		// rows without cells become empty records
+		for (; nextRowIx < rowIx; nextRowIx++) {
+			nextColIx = 0;
+			writeEmptyFields(columnCount);
+			out.write(LINE_SEPARATOR);
+		}
+		nextColIx = 0;
+	}
+
+	@Override
+	public void cell(int colIx, String value, int height, String coveringValue) throws IOException {
+		writeEmptyFields(colIx);
+		if (colIx > 0) {
+			out.write(delimiter);
+		}
+		if (value != null) {
+			writeField(value);
+		} else if (mergedCells == MergedCellsValue.repeat) {
+			writeField(coveringValue);
+		} else if (mergedCells == MergedCellsValue.marker) {
+			// written unquoted, unlike values equal to the marker
+			out.write(tsv ? sanitizeTsv(continuationMarker) : continuationMarker);
+		}
+		nextColIx = colIx + 1;
+	}
+
+	@Override
+	public void endRow(int rowIx) throws IOException {
+		writeEmptyFields(columnCount);
+		out.write(LINE_SEPARATOR);
+		nextRowIx = rowIx + 1;
+	}
+
+	/**
+	 * Writes empty fields up to the given column.
+	 *
+	 * @param colIx
+	 * @throws IOException
+	 */
+	private void writeEmptyFields(int colIx) throws IOException {
+		for (; nextColIx < colIx; nextColIx++) {
+			if (nextColIx > 0) {
+				out.write(delimiter);
+			}
+		}
+	}
+
+	private void writeField(String value) throws IOException {
+		if (tsv) {
+			out.write(sanitizeTsv(value));
+			return;
+		}
+		if (value.indexOf(delimiter) < 0 && value.indexOf(QUOTE) < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0 && !value.equals(continuationMarker)) {
+			out.write(value);
+			return;
+		}
+		out.write(QUOTE);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == QUOTE) {
+				out.write(QUOTE);
+			}
+			out.write(c);
+		}
+		out.write(QUOTE);
+	}
+
+	private static String sanitizeTsv(String value) {
+		return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SMetaAnnotation;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A directory of imported documents, each one stored under a hash of the content of its file, its
+ * identifier and the importer properties which affect the result. A document found in the cache is
+ * loaded instead of being imported again. If the cache grows beyond its size limit, the entries
+ * used least recently are deleted. The cache may be shared by several mappers running concurrently.
+ */
+public class ImportCache {
+
+	/** version of the layout of the entries, is part of each key */
+	private static final String FORMAT_VERSION = "1";
+	private static final String GRAPH_FILE = "graph." + SaltUtil.FILE_ENDING_SALT_XML;
+	private static final String META_FILE = "meta.properties";
+	private static final String TEMP_PREFIX = "tmp-";
+
+	/** properties which do not change the imported document and therefore are no part of the key */
+	private static final Set<String> IGNORED_PROPERTIES = new HashSet<>(Arrays.asList(
+			SpreadsheetImporterProperties.PROP_CACHE_DIR, SpreadsheetImporterProperties.PROP_CACHE_MAX_SIZE,
+			SpreadsheetImporterProperties.PROP_METRICS, SpreadsheetImporterProperties.PROP_PARALLEL_ANNOTATIONS,
+			SpreadsheetImporterProperties.PROP_STREAMING, SpreadsheetImporterProperties.PROP_STRING_POOL_SIZE,
+			SpreadsheetImporterProperties.PROP_DISCOVERY_THREADS));
+
+	private final File directory;
+	private final long maxBytes;
+	/** size of all entries in bytes, -1 until it is computed on the first store */
+	private long size = -1;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param directory the directory of the cache, it is created on the first store
+	 * @param maxBytes maximal size of all entries in bytes
+	 */
+	public ImportCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Computes the key of a document.
+	 *
+	 * @param file the file the document is imported from
+	 * @param documentId identifier of the document, since the identifiers of all nodes of the graph
+	 *        depend on it
+	 * @param props the importer properties
+	 * @return the key as hex string
+	 * @throws IOException if the file cannot be read
+	 */
+	public static String getKey(File file, String documentId, SpreadsheetImporterProperties props)
+			throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		StringBuilder header = new StringBuilder();
+		header.append(FORMAT_VERSION).append('\n').append(documentId).append('\n');
+		List<String> names = new ArrayList<>(props.getPropertyNames());
+		Collections.sort(names);
+		for (String name : names) {
+			if (!IGNORED_PROPERTIES.contains(name)) {
+				header.append(name).append('=').append(props.getProperty(name).getValue()).append('\n');
+			}
+		}
+		digest.update(header.toString().getBytes(StandardCharsets.UTF_8));
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Sets the document graph and the meta annotations of the cached document to the given document.
+	 *
+	 * @param key
+	 * @param document
+	 * @return true, if the document was found in the cache
+	 */
+	public boolean load(String key, SDocument document) {
+		File entry = new File(directory, key);
+		File graphFile = new File(entry, GRAPH_FILE);
+		if (!graphFile.isFile()) {
+			misses.incrementAndGet();
+			return false;
+		}
+		SDocumentGraph graph;
+		Properties meta = new Properties();
+		try (InputStream in = new FileInputStream(new File(entry, META_FILE))) {
+			meta.load(in);
+			graph = SaltUtil.loadDocumentGraph(URI.createFileURI(graphFile.getAbsolutePath()));
+		} catch (IOException | RuntimeException e) {
+			SpreadsheetImporter.logger.warn("Could not load the cached document '" + key + "', it is imported again.", e);
+			FileUtils.deleteQuietly(entry);
+			misses.incrementAndGet();
+			return false;
+		}
+		document.setDocumentGraph(graph);
+		for (String qName : meta.stringPropertyNames()) {
+			Pair<String, String> splitName = SaltUtil.splitQName(qName);
+			if (document.getMetaAnnotation(qName) == null) {
+				document.createMetaAnnotation(splitName.getLeft(), splitName.getRight(), meta.getProperty(qName));
+			}
+		}
+		// the modification time orders the entries for the eviction
+		entry.setLastModified(System.currentTimeMillis());
+		hits.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Stores the document graph and the meta annotations of the document under the given key and
+	 * evicts the entries used least recently, if the cache is too large afterwards.
+	 *
+	 * @param key
+	 * @param document
+	 * @throws IOException if the entry cannot be written
+	 */
+	public void store(String key, SDocument document) throws IOException {
+		Files.createDirectories(directory.toPath());
+		File tempEntry = Files.createTempDirectory(directory.toPath(), TEMP_PREFIX).toFile();
+		try {
+			SaltUtil.saveDocumentGraph(document.getDocumentGraph(),
+					URI.createFileURI(new File(tempEntry, GRAPH_FILE).getAbsolutePath()));
+			Properties meta = new Properties();
+			for (SMetaAnnotation metaAnnotation : document.getMetaAnnotations()) {
+				meta.setProperty(metaAnnotation.getQName(), metaAnnotation.getValue_STEXT());
+			}
+			try (OutputStream out = new FileOutputStream(new File(tempEntry, META_FILE))) {
+				meta.store(out, null);
+			}
+			long entrySize = FileUtils.sizeOfDirectory(tempEntry);
+			File entry = new File(directory, key);
+			try {
+				Files.move(tempEntry.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				if (entry.isDirectory()) {
+					// the same document was stored by another mapper in the meantime
+					return;
+				}
+				throw e;
+			}
+			addSize(entrySize);
+		} catch (RuntimeException e) {
+			throw new IOException("Could not store the document graph of '" + document.getName() + "'.", e);
+		} finally {
+			FileUtils.deleteQuietly(tempEntry);
+		}
+	}
+
+	private synchronized void addSize(long entrySize) {
+		if (size < 0) {
+			// the new entry is already part of the directory
+			size = FileUtils.sizeOfDirectory(directory);
+		} else {
+			size += entrySize;
+		}
+		if (size > maxBytes) {
+			evict();
+		}
+	}
+
+	/**
+	 * Deletes the entries used least recently until the cache fits into its size limit.
+	 */
+	private void evict() {
+		File[] entries = directory.listFiles(file -> file.isDirectory() && !file.getName().startsWith(TEMP_PREFIX));
+		if (entries == null) {
+			return;
+		}
+		long[] lastModified = new long[entries.length];
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			lastModified[i] = entries[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> lastModified[i]));
+		for (int i = 0; i < order.length && size > maxBytes; i++) {
+			File entry = entries[order[i]];
+			long entrySize = FileUtils.sizeOfDirectory(entry);
+			if (FileUtils.deleteQuietly(entry)) {
+				size -= entrySize;
+			}
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of the import and the number of processed elements, either of a single
+ * document or summed up over all documents of an import. If the metrics are disabled, no clock is
+ * read and nothing is counted.
+ */
+public class ImportMetrics {
+
+	/**
+	 * The phases of the import of a document.
+	 */
+	public enum Phase {
+		OPEN("open"), HEADER("header"), MERGED_INDEX("merged_index"), ROWS("rows"), PRIMARY_TEXT(
+				"primary_text"), ANNOTATIONS("annotations"), LAYERS("layers"), METADATA("metadata");
+
+		private final String key;
+
+		private Phase(String key) {
+			this.key = key;
+		}
+
+		public String getKey() {
+			return key;
+		}
+	}
+
+	/**
+	 * The elements counted during the import of a document.
+	 */
+	public enum Counter {
+		DOCUMENTS("documents"), ROWS("rows"), CELLS("cells"), TOKENS("tokens"), SPANS(
+				"spans"), MERGED_REGIONS("merged_regions");
+
+		private final String key;
+
+		private Counter(String key) {
+			this.key = key;
+		}
+
+		public String getKey() {
+			return key;
+		}
+	}
+
+	private final String name;
+	private final boolean enabled;
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private final long[] counts = new long[Counter.values().length];
+
+	/**
+	 * @param name name of the document or the import the metrics belong to
+	 * @param enabled false, if nothing shall be measured
+	 */
+	public ImportMetrics(String name, boolean enabled) {
+		this.name = name;
+		this.enabled = enabled;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the start time of a phase to be passed to {@link #stop(Phase, long)}, 0 if disabled
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Adds the time since the given start time to the phase.
+	 *
+	 * @param phase
+	 * @param start the value returned by {@link #start()}
+	 */
+	public void stop(Phase phase, long start) {
+		if (enabled) {
+			phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * @param counter
+	 * @param number the number of elements to add to the counter
+	 */
+	public void count(Counter counter, long number) {
+		if (enabled) {
+			counts[counter.ordinal()] += number;
+		}
+	}
+
+	/**
+	 * @param phase
+	 * @return the time spent in the phase in nanoseconds
+	 */
+	public synchronized long getNanos(Phase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * @return the time spent in all phases in nanoseconds
+	 */
+	public synchronized long getTotalNanos() {
+		long total = 0;
+		for (long nanos : phaseNanos) {
+			total += nanos;
+		}
+		return total;
+	}
+
+	/**
+	 * @param counter
+	 * @return the number of counted elements
+	 */
+	public synchronized long getCount(Counter counter) {
+		return counts[counter.ordinal()];
+	}
+
+	/**
+	 * Adds the metrics of a document to these metrics, may be called by several mappers concurrently.
+	 *
+	 * @param other the metrics of a single document
+	 */
+	public synchronized void add(ImportMetrics other) {
+		if (!enabled || !other.isEnabled()) {
+			return;
+		}
+		for (Phase phase : Phase.values()) {
+			phaseNanos[phase.ordinal()] += other.getNanos(phase);
+		}
+		for (Counter counter : Counter.values()) {
+			counts[counter.ordinal()] += other.getCount(counter);
+		}
+	}
+
+	/**
+	 * @return the metrics as a single line of space separated key=value pairs, times in milliseconds
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder line = new StringBuilder();
+		line.append("name=").append(name);
+		line.append(" total_ms=").append(toMillis(getTotalNanos()));
+		for (Phase phase : Phase.values()) {
+			line.append(" ").append(phase.getKey()).append("_ms=")
+					.append(toMillis(phaseNanos[phase.ordinal()]));
+		}
+		for (Counter counter : Counter.values()) {
+			line.append(" ").append(counter.getKey()).append("=").append(counts[counter.ordinal()]);
+		}
+		return line.toString();
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * A read-only lookup for the merged regions of a sheet. For each column the row intervals of the
+ * regions covering it are kept in sorted primitive arrays, so the memory needed grows with the
+ * number of merged regions and not with the number of cells they cover.
+ */
+public class MergedRegionIndex {
+
+	private static final int[] NO_ROWS = new int[0];
+
+	/** first rows of the regions per column, sorted ascending */
+	private final int[][] firstRows;
+	/** last rows of the regions per column, in the order of {@link #firstRows} */
+	private final int[][] lastRows;
+
+	public MergedRegionIndex(List<CellRangeAddress> mergedRegions) {
+		int columnCount = 0;
+		for (CellRangeAddress region : mergedRegions) {
+			columnCount = Math.max(columnCount, region.getLastColumn() + 1);
+		}
+		int[] regionsPerColumn = new int[columnCount];
+		for (CellRangeAddress region : mergedRegions) {
+			for (int column = region.getFirstColumn(); column <= region.getLastColumn(); column++) {
+				regionsPerColumn[column]++;
+			}
+		}
+
+		// collect the intervals of each column as (first row, last row) pairs packed into a long,
+		// sorting the packed values sorts the intervals by their first row
+		long[][] intervals = new long[columnCount][];
+		for (int column = 0; column < columnCount; column++) {
+			intervals[column] = new long[regionsPerColumn[column]];
+		}
+		int[] filled = new int[columnCount];
+		for (CellRangeAddress region : mergedRegions) {
+			long interval = ((long) region.getFirstRow() << 32) | (region.getLastRow() & 0xFFFFFFFFL);
+			for (int column = region.getFirstColumn(); column <= region.getLastColumn(); column++) {
+				intervals[column][filled[column]++] = interval;
+			}
+		}
+
+		firstRows = new int[columnCount][];
+		lastRows = new int[columnCount][];
+		for (int column = 0; column < columnCount; column++) {
+			long[] columnIntervals = intervals[column];
+			if (columnIntervals.length == 0) {
+				firstRows[column] = NO_ROWS;
+				lastRows[column] = NO_ROWS;
+				continue;
+			}
+			Arrays.sort(columnIntervals);
+			firstRows[column] = new int[columnIntervals.length];
+			lastRows[column] = new int[columnIntervals.length];
+			for (int i = 0; i < columnIntervals.length; i++) {
+				firstRows[column][i] = (int) (columnIntervals[i] >>> 32);
+				lastRows[column][i] = (int) columnIntervals[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the last row of the merged region covering the given cell.
+	 *
+	 * @param rowIndex (0-based) row of the cell
+	 * @param columnIndex (0-based) column of the cell
+	 * @return the last row of the merged region, the row of the cell itself if the cell is not merged
+	 */
+	public int getLastRow(int rowIndex, int columnIndex) {
+		if (columnIndex < 0 || columnIndex >= firstRows.length) {
+			return rowIndex;
+		}
+		int[] starts = firstRows[columnIndex];
+		// find the last region starting at or before the row
+		int pos = Arrays.binarySearch(starts, rowIndex);
+		if (pos < 0) {
+			pos = -pos - 2;
+		} else {
+			// several regions may start in the same row, take the last one
+			while (pos + 1 < starts.length && starts[pos + 1] == rowIndex) {
+				pos++;
+			}
+		}
+		if (pos >= 0 && lastRows[columnIndex][pos] >= rowIndex) {
+			return lastRows[columnIndex][pos];
+		}
+		return rowIndex;
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * A {@link SheetTable} backed by a {@link Sheet} of the POI user model. Cell values are formatted on
+ * access, so no copy of the sheet is created.
+ */
+public class PoiSheetTable implements SheetTable {
+
+	private final Sheet sheet;
+	/** use formater to ensure that e.g. integers will not be converted into decimals */
+	private final DataFormatter formatter = new DataFormatter();
+
+	public PoiSheetTable(Sheet sheet) {
+		this.sheet = sheet;
+	}
+
+	@Override
+	public String getName() {
+		return sheet.getSheetName();
+	}
+
+	@Override
+	public int getLastRowNum() {
+		return sheet.getLastRowNum();
+	}
+
+	@Override
+	public int getPhysicalNumberOfRows() {
+		return sheet.getPhysicalNumberOfRows();
+	}
+
+	@Override
+	public int getPhysicalNumberOfCells(int rowNum) {
+		Row row = sheet.getRow(rowNum);
+		return row == null ? 0 : row.getPhysicalNumberOfCells();
+	}
+
+	@Override
+	public int getLastCellNum(int rowNum) {
+		Row row = sheet.getRow(rowNum);
+		return row == null ? 0 : Math.max(row.getLastCellNum(), 0);
+	}
+
+	@Override
+	public boolean hasRow(int rowNum) {
+		return sheet.getRow(rowNum) != null;
+	}
+
+	@Override
+	public String getCellValue(int rowNum, int colNum) {
+		Row row = sheet.getRow(rowNum);
+		if (row == null) {
+			return null;
+		}
+		Cell cell = row.getCell(colNum);
+		return cell == null ? null : formatter.formatCellValue(cell);
+	}
+
+	@Override
+	public String[] getRowValues(int rowNum) {
+		Row row = sheet.getRow(rowNum);
+		if (row == null) {
+			return null;
+		}
+		String[] values = new String[Math.max(row.getLastCellNum(), 0)];
+		for (Cell cell : row) {
+			values[cell.getColumnIndex()] = formatter.formatCellValue(cell);
+		}
+		return values;
+	}
+
+	@Override
+	public List<CellRangeAddress> getMergedRegions() {
+		return sheet.getMergedRegions();
+	}
+}
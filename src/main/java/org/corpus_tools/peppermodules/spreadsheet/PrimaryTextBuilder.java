@@ -0,0 +1,190 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.STimeline;
+import org.corpus_tools.salt.common.STimelineRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Collects the cells of a primary text column row by row and creates the primary text, its tokens
+ * and their relations in the document graph afterwards. The merged regions and the last row of the
+ * sheet are only needed then, so the rows can be added while the sheet is read.
+ */
+public class PrimaryTextBuilder {
+
+	private final TierSchema.Tier tier;
+	private final boolean includeEmptyCells;
+
+	private final StringBuilder text = new StringBuilder();
+	private int[] textStarts = new int[16];
+	private int[] textEnds = new int[16];
+	private int[] timeStarts = new int[16];
+	/** end of the time of each token, 0 if it ends with the merged region of its cell */
+	private int[] timeEnds = new int[16];
+	private int size = 0;
+
+	private TimelineTokenIndex tokenIndex = null;
+	private List<SToken> tokens = null;
+
+	/**
+	 * @param tier the primary text tier
+	 * @param includeEmptyCells true, if empty cells are tokens with an empty text
+	 */
+	public PrimaryTextBuilder(TierSchema.Tier tier, boolean includeEmptyCells) {
+		this.tier = tier;
+		this.includeEmptyCells = includeEmptyCells;
+	}
+
+	public TierSchema.Tier getTier() {
+		return tier;
+	}
+
+	/**
+	 * Adds the cell of the primary text column in the given row, the rows have to be added in
+	 * ascending order.
+	 *
+	 * @param rowNum (0-based) index of the row, the first row holds the header
+	 * @param value formatted value of the cell, null if the cell does not exist
+	 */
+	public void addCell(int rowNum, String value) {
+		String tokenText = null;
+		if (value != null && !value.isEmpty()) {
+			tokenText = value;
+		} else if (includeEmptyCells) {
+			tokenText = "";
+		}
+		if (tokenText == null) {
+			return;
+		}
+		if (size == textStarts.length) {
+			textStarts = Arrays.copyOf(textStarts, size * 2);
+			textEnds = Arrays.copyOf(textEnds, size * 2);
+			timeStarts = Arrays.copyOf(timeStarts, size * 2);
+			timeEnds = Arrays.copyOf(timeEnds, size * 2);
+		}
+		// insert space between tokens
+		if (size > 0) {
+			text.append(" ");
+		}
+		textStarts[size] = text.length();
+		text.append(tokenText);
+		textEnds[size] = text.length();
+		timeStarts[size] = rowNum - 1;
+		timeEnds[size] = value != null ? 0 : rowNum;
+		size++;
+	}
+
+	/**
+	 * Removes the tokens of the given row and the rows following it.
+	 *
+	 * @param rowNum (0-based) index of the first row to remove
+	 */
+	public void removeRowsFrom(int rowNum) {
+		while (size > 0 && timeStarts[size - 1] >= rowNum - 1) {
+			size--;
+		}
+		text.setLength(size > 0 ? textEnds[size - 1] : 0);
+	}
+
+	/**
+	 * Creates the primary text with its tokens and their textual and timeline relations, and the order
+	 * relations between the tokens if wanted, in one step from the collected offsets and intervals.
+	 *
+	 * @param graph
+	 * @param addOrderRelation
+	 * @param mergedCells the merged regions of the sheet
+	 * @param lastRowNum (0-based) index of the last row of the sheet
+	 * @return the created primary text
+	 */
+	public STextualDS commit(SDocumentGraph graph, boolean addOrderRelation, MergedRegionIndex mergedCells,
+			int lastRowNum) {
+		for (int i = 0; i < size; i++) {
+			if (timeEnds[i] == 0) {
+				timeEnds[i] = mergedCells.getLastRow(timeStarts[i] + 1, tier.getColumn());
+			}
+		}
+		// the text ends with a space, unless its last token is in the last row
+		if (size > 0 && timeStarts[size - 1] + 1 != lastRowNum) {
+			text.append(" ");
+		}
+		STextualDS primaryText = SaltFactory.createSTextualDS();
+		primaryText.setName(tier.getName());
+		primaryText.setText(text.toString());
+		graph.addNode(primaryText);
+
+		STimeline timeline = graph.getTimeline();
+		SToken[] createdTokens = new SToken[size];
+		SToken lastTok = null;
+		for (int i = 0; i < size; i++) {
+			// create the token and its textual relation directly, the offsets are known to be valid,
+			// so the checks of SDocumentGraph#createToken for each single token are not needed
+			SToken currTok = SaltFactory.createSToken();
+			graph.addNode(currTok);
+			STextualRelation textRel = SaltFactory.createSTextualRelation();
+			textRel.setSource(currTok);
+			textRel.setTarget(primaryText);
+			textRel.setStart(textStarts[i]);
+			textRel.setEnd(textEnds[i]);
+			graph.addRelation(textRel);
+
+			if (lastTok != null && addOrderRelation) {
+				SOrderRelation primTextOrder = SaltFactory.createSOrderRelation();
+				primTextOrder.setType(tier.getName());
+				primTextOrder.setSource(lastTok);
+				primTextOrder.setTarget(currTok);
+				graph.addRelation(primTextOrder);
+			}
+			STimelineRelation sTimeRel = SaltFactory.createSTimelineRelation();
+			sTimeRel.setSource(currTok);
+			sTimeRel.setTarget(timeline);
+			sTimeRel.setStart(timeStarts[i]);
+			sTimeRel.setEnd(timeEnds[i]);
+			graph.addRelation(sTimeRel);
+
+			createdTokens[i] = currTok;
+			lastTok = currTok;
+		}
+		tokenIndex = new TimelineTokenIndex(createdTokens, timeStarts, timeEnds, size, lastRowNum);
+		tokens = Collections.unmodifiableList(Arrays.asList(createdTokens));
+		return primaryText;
+	}
+
+	/**
+	 * @return the created tokens by their points of time, null before {@link #commit}
+	 */
+	public TimelineTokenIndex getTokenIndex() {
+		return tokenIndex;
+	}
+
+	/**
+	 * @return the created tokens in the order of the text, null before {@link #commit}
+	 */
+	public List<SToken> getTokens() {
+		return tokens;
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.STimelineRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * The relations of a document graph the exporter lays out the tokenizations by, collected in a
+ * single pass over the relations of the graph. Tokens and nodes are keyed by identity. If a token has
+ * several relations of the same kind, the first one of the graph is kept.
+ * <br/>
+ * The nodes of each ordering are numbered and their successors are stored in an array, so that an
+ * ordering is walked from its head in linear time without recursion. The head is found by the
+ * in-degree of the nodes.
+ */
+public class RelationIndex {
+
+	private final Map<SToken, STimelineRelation> timelineRelations = new IdentityHashMap<>();
+	private final Map<SToken, STextualRelation> textualRelations = new IdentityHashMap<>();
+	/** the orderings by their names */
+	private final Map<String, Ordering> orderings = new HashMap<>();
+	private int timelineRelationCount = 0;
+
+	/**
+	 * @param graph
+	 */
+	public RelationIndex(SDocumentGraph graph) {
+		for (SRelation<?, ?> relation : graph.getRelations()) {
+			if (relation instanceof STimelineRelation) {
+				timelineRelationCount++;
+				STimelineRelation timelineRelation = (STimelineRelation) relation;
+				if (timelineRelation.getSource() != null) {
+					timelineRelations.putIfAbsent(timelineRelation.getSource(), timelineRelation);
+				}
+			} else if (relation instanceof STextualRelation) {
+				STextualRelation textualRelation = (STextualRelation) relation;
+				if (textualRelation.getSource() != null) {
+					textualRelations.putIfAbsent(textualRelation.getSource(), textualRelation);
+				}
+			} else if (relation instanceof SOrderRelation) {
+				SOrderRelation orderRelation = (SOrderRelation) relation;
+				Ordering ordering = orderings.get(orderRelation.getType());
+				if (ordering == null) {
+					ordering = new Ordering();
+					orderings.put(orderRelation.getType(), ordering);
+				}
+				if (orderRelation.getSource() != null && orderRelation.getTarget() != null) {
+					ordering.add(orderRelation.getSource(), orderRelation.getTarget());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true, if the graph has at least one timeline relation
+	 */
+	public boolean hasTimelineRelations() {
+		return timelineRelationCount > 0;
+	}
+
+	/**
+	 * @param token
+	 * @return the timeline relation of the token, null if it has none
+	 */
+	public STimelineRelation getTimelineRelation(SToken token) {
+		return timelineRelations.get(token);
+	}
+
+	/**
+	 * @param token
+	 * @return the textual relation of the token, null if it has none
+	 */
+	public STextualRelation getTextualRelation(SToken token) {
+		return textualRelations.get(token);
+	}
+
+	/**
+	 * @return the names (types) of the order relations
+	 */
+	public Set<String> getOrderNames() {
+		return orderings.keySet();
+	}
+
+	/**
+	 * @param orderName
+	 * @return the nodes of the given ordering from its head on, empty if there is no such ordering
+	 */
+	public List<SNode> getOrderedNodes(String orderName) {
+		Ordering ordering = orderings.get(orderName);
+		return ordering == null ? new ArrayList<>() : ordering.walk();
+	}
+
+	/**
+	 * The nodes of one ordering, numbered in the order they occur in the relations, with the number
+	 * of the successor and the in-degree of each node.
+	 */
+	private static class Ordering {
+		private final Map<SNode, Integer> nodeIds = new IdentityHashMap<>();
+		private final List<SNode> nodes = new ArrayList<>();
+		/** number of the successor of each node, -1 if it has none */
+		private int[] successors = new int[16];
+		private int[] inDegrees = new int[16];
+
+		private void add(SNode source, SNode target) {
+			int sourceId = getId(source);
+			int targetId = getId(target);
+			if (successors[sourceId] < 0) {
+				// as for the other relations, the first one is kept
+				successors[sourceId] = targetId;
+				inDegrees[targetId]++;
+			}
+		}
+
+		private int getId(SNode node) {
+			Integer id = nodeIds.get(node);
+			if (id == null) {
+				id = nodes.size();
+				nodeIds.put(node, id);
+				nodes.add(node);
+				if (id == successors.length) {
+					successors = Arrays.copyOf(successors, id * 2);
+					inDegrees = Arrays.copyOf(inDegrees, id * 2);
+				}
+				successors[id] = -1;
+			}
+			return id;
+		}
+
+		/**
+		 * Walks the chain starting at the first node without predecessor. If the ordering consists of
+		 * several chains, the others are not walked. If it has no head, since it is a cycle, the walk
+		 * starts at its first node and stops before a node is visited twice.
+		 *
+		 * @return the nodes of the chain
+		 */
+		private List<SNode> walk() {
+			int size = nodes.size();
+			int head = 0;
+			for (int i = 0; i < size; i++) {
+				if (inDegrees[i] == 0) {
+					head = i;
+					break;
+				}
+			}
+			List<SNode> chain = new ArrayList<>(size);
+			boolean[] visited = new boolean[size];
+			for (int id = size == 0 ? -1 : head; id >= 0 && !visited[id]; id = successors[id]) {
+				visited[id] = true;
+				chain.add(nodes.get(id));
+			}
+			return chain;
+		}
+	}
+}
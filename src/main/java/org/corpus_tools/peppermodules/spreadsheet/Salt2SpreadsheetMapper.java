@@ -17,22 +17,25 @@
  */
 package org.corpus_tools.peppermodules.spreadsheet;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -43,6 +46,7 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
@@ -50,9 +54,10 @@ import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleDataException;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.AlignmentValue;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.FormatValue;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.MergedCellsValue;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
-import org.corpus_tools.salt.common.SOrderRelation;
 import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.STextualDS;
 import org.corpus_tools.salt.common.STextualRelation;
@@ -60,7 +65,6 @@ import org.corpus_tools.salt.common.STimelineRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SNode;
-import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.util.DataSourceSequence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,8 +74,6 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 	private static final String DEFAULT_TOK_NAME = "TOK";
 	private static final String ERR_MSG_NO_VALUE = "No value provided for cell. This might be due to a non-specified text or annotation value.";
 	private static final String ERR_MSG_NO_SHEET = "Could not create entry: Sheet is null.";
-	private static final String ERR_MSG_NO_ROW = "Could not create entry: Row is null.";
-	private static final String ERR_MSG_NO_CELL = "Could not create entry: Cell is null.";
 	private static final String ERR_MSG_NO_TEXTUAL_RELATION = "Token has no textual relation and cannot be mapped.";
 	private static final String WARNING_NO_TEXT_ANNOTATION = "No text value has been annotated for token span. Overlapped text is used instead.";
 	private static final String ERR_MSG_DOCNAME_IN_USE = "The annotation name chosen for the document column is already in use.";
@@ -81,6 +83,7 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 	public Salt2SpreadsheetMapper() {
 		super();
 		annoQNameToColIx = new HashMap<>();
+		grid = new SheetGrid();
 	}
 	
 	@Override
@@ -102,43 +105,71 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 	private Map<String, Integer> columnOrder = null;
 	private boolean trimValues = false;
 	private Set<String> ignoreNames = null;
+	private String fontName = null;
+	private AlignmentValue horizontalAlignment = null;
+	private AlignmentValue verticalAlignment = null;
 	private CellStyle cellStyle = null;
 	private String docColTitle = null;
+	private boolean streaming = false;
+	private int streamingWindow = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+	private FormatValue format = FormatValue.xlsx;
+	private MergedCellsValue mergedCells = MergedCellsValue.blank;
+	private String continuationMarker = null;
 	
-	private void readProperties() {
+	/**
+	 * Reads the exporter properties.
+	 */
+	protected void readProperties() {
 		SpreadsheetExporterProperties properties = (SpreadsheetExporterProperties) getProperties();		
+		streaming = properties.streaming();
+		streamingWindow = properties.getStreamingWindow();
+		format = properties.getFormat();
+		mergedCells = properties.getMergedCells();
+		continuationMarker = properties.getContinuationMarker();
 		columnOrder = properties.getColumnOrder();
 		trimValues = properties.trimValues();
 		ignoreNames = properties.ignoreAnnoNames();
+		fontName = properties.getFont();
+		horizontalAlignment = properties.getHorizontalTextAlignment();
+		verticalAlignment = properties.getVerticalTextAlignment();
+		docColTitle = properties.getDocumentColumnTitle();
+	}
+	
+	/**
+	 * Creates the default cell style of the workbook from the properties.
+	 */
+	private void createCellStyle() {
 		cellStyle = getWorkbook().createCellStyle();
-		{
-			String fontName = properties.getFont();
-			if (fontName != null) {
-				Font defaultFont = getWorkbook().createFont();
-				defaultFont.setFontName(fontName);
-				cellStyle.setFont(defaultFont);
-			}
-			Map<AlignmentValue, Object> alignmentMap; {
-				alignmentMap = new HashMap<>();
-				alignmentMap.put(AlignmentValue.bottom, VerticalAlignment.BOTTOM);
-				alignmentMap.put(AlignmentValue.mid, VerticalAlignment.CENTER);
-				alignmentMap.put(AlignmentValue.top, VerticalAlignment.TOP);
-				alignmentMap.put(AlignmentValue.left, HorizontalAlignment.LEFT);
-				alignmentMap.put(AlignmentValue.center, HorizontalAlignment.CENTER);
-				alignmentMap.put(AlignmentValue.right, HorizontalAlignment.RIGHT);
-			}
-			cellStyle.setAlignment( (HorizontalAlignment) alignmentMap.get(properties.getHorizontalTextAlignment()) );
-			cellStyle.setVerticalAlignment( (VerticalAlignment) alignmentMap.get(properties.getVerticalTextAlignment()) );
-			cellStyle.setDataFormat( getWorkbook().createDataFormat().getFormat("@") );
+		if (fontName != null) {
+			Font defaultFont = getWorkbook().createFont();
+			defaultFont.setFontName(fontName);
+			cellStyle.setFont(defaultFont);
 		}
-		docColTitle = properties.getDocumentColumnTitle();
+		Map<AlignmentValue, Object> alignmentMap; {
+			alignmentMap = new HashMap<>();
+			alignmentMap.put(AlignmentValue.bottom, VerticalAlignment.BOTTOM);
+			alignmentMap.put(AlignmentValue.mid, VerticalAlignment.CENTER);
+			alignmentMap.put(AlignmentValue.top, VerticalAlignment.TOP);
+			alignmentMap.put(AlignmentValue.left, HorizontalAlignment.LEFT);
+			alignmentMap.put(AlignmentValue.center, HorizontalAlignment.CENTER);
+			alignmentMap.put(AlignmentValue.right, HorizontalAlignment.RIGHT);
+		}
+		cellStyle.setAlignment( (HorizontalAlignment) alignmentMap.get(horizontalAlignment) );
+		cellStyle.setVerticalAlignment( (VerticalAlignment) alignmentMap.get(verticalAlignment) );
+		cellStyle.setDataFormat( getWorkbook().createDataFormat().getFormat("@") );
 	}
 	
 	private Workbook workbook = null;
 	
 	private Workbook getWorkbook() {
 		if (workbook == null) {
-			workbook = new XSSFWorkbook();
+			if (streaming) {
+				SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(streamingWindow);
+				streamingWorkbook.setCompressTempFiles(true);
+				workbook = streamingWorkbook;
+			} else {
+				workbook = new XSSFWorkbook();
+			}
 			workbook.createSheet(getDocument().getName());
 		}
 		return workbook;
@@ -153,20 +184,33 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 	}
 	
 	private Map<SToken, int[]> tokToCoords = null;
+	/** the tokens overlapped by each span, computed once for the columns and the values */
+	private final Map<SSpan, List<SToken>> spanTokens = new IdentityHashMap<>();
+	/** the timeline, textual and order relations of the graph, built by {@link #mapTokenizations()} */
+	private RelationIndex relationIndex = null;
 	private Map<String, Integer> annoQNameToColIx = null;
+	/** index of the next free column */
+	private int nextColIx = 0;
+	/** the layout of the sheet, it is rendered to the workbook by {@link #writeWorkbook()} */
+	private SheetGrid grid = null;
+	
+	/**
+	 * @return the layout of the sheet, which is complete after {@link #mapSpansAndAnnotations()}
+	 */
+	protected SheetGrid getGrid() {
+		return grid;
+	}
 	
-	private void mapTokenizations() {
+	/**
+	 * Lays out the tokenizations and the token annotations, requires {@link #readProperties()}.
+	 */
+	protected void mapTokenizations() {
 		tokToCoords = new HashMap<SToken, int[]>();
 		SDocumentGraph graph = getDocumentGraph();
-		List<SRelation<?, ?>> timelineRelations = graph.getRelations().stream()
-				.filter((SRelation<?, ?> r) -> r instanceof STimelineRelation)
-				.collect(Collectors.toList());
-		List<SRelation<?, ?>> orderRelations = graph.getRelations().stream()
-				.filter((SRelation<?, ?> r) -> r instanceof SOrderRelation)
-				.collect(Collectors.toList());
-		Set<String> orderNames = orderRelations.stream().map(SRelation::getType).collect(Collectors.toSet());		
+		relationIndex = new RelationIndex(graph);
+		Set<String> orderNames = relationIndex.getOrderNames();
 		int headerOffset = 1; // FIXME this appears to be a bit oversimplified
-		if (timelineRelations.isEmpty() && orderNames.size() < 2) {
+		if (!relationIndex.hasTimelineRelations() && orderNames.size() < 2) {
 			createEntry(0, 0, 1, DEFAULT_TOK_NAME);
 			int rowIx = 0;
 			for (STextualDS ds : graph.getTextualDSs()) {
@@ -175,10 +219,10 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 					tokToCoords.put(sTok, createEntry(rowIx++, 0, 1, graph.getText(sTok)));
 				}
 			}
-			annoQNameToColIx.put(null, 0);
+			setColumnIndex(null, 0);
 		} else {
 			// multiple parallel tokenizations, go by (1) Timeline relations if possible if not by order relations
-			if (timelineRelations.size() > 0) { // by timeline relations is prioritized over ordered spans
+			if (relationIndex.hasTimelineRelations()) { // by timeline relations is prioritized over ordered spans
 				int colIx = 0;
 				for (STextualDS ds : graph.getTextualDSs()) {
 					String colName = ds.getName();
@@ -186,16 +230,15 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 					createEntry(0, colIx, 1, colName);
 					for (SToken sTok : graph.getSortedTokenByText(dsTokens)) {
 						String text = graph.getText(sTok);
-						Optional<SRelation> optRelation = sTok.getOutRelations().stream().filter((SRelation r) -> r instanceof STimelineRelation).findFirst();
-						if (!optRelation.isPresent()) {
+						STimelineRelation tRel = relationIndex.getTimelineRelation(sTok);
+						if (tRel == null) {
 							throw new PepperModuleDataException(this, "Token has no timeline relation and cannot be mapped: " + text + " (" + colName + ")");
 						}
-						STimelineRelation tRel = (STimelineRelation) optRelation.get();											 
 						tokToCoords.put(sTok, createEntry(tRel.getStart() + headerOffset, colIx, tRel.getEnd() - tRel.getStart(), text));
 					}
 					colIx += 1;
 				}
-				annoQNameToColIx.put(null, graph.getTextualDSs().size() - 1);
+				setColumnIndex(null, graph.getTextualDSs().size() - 1);
 			} else { // by order relations
 				int colIx = 0;
 				int upperBound = getDocumentGraph().getTextualDSs().get(0).getText().length() + 1;
@@ -203,35 +246,16 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 				List<Integer>[] endValues = new ArrayList[orderNames.size()];
 				SNode[][] nodesByCoords = new SNode[upperBound][orderNames.size()];
 				String[] colNames = new String[orderNames.size()];
-				for (Entry<String, Iterator<SNode>> entry : getTokenGroups(orderNames).entrySet()) {
-					String colName = entry.getKey();
+				for (String colName : orderNames) {
 					colNames[colIx] = colName;
-					Iterator<SNode> nodes = entry.getValue();
 					createEntry(0, colIx, 1, colName);
 					startValues[colIx] = new ArrayList<Integer>();
 					endValues[colIx] = new ArrayList<Integer>();
-					while (nodes.hasNext()) {
-						SNode node = nodes.next();
+					for (SNode node : relationIndex.getOrderedNodes(colName)) {
 						List<SToken> overlappedTokens = graph.getSortedTokenByText( graph.getOverlappedTokens(node) );
-						int start; {
-							Optional<SRelation> optRelation = overlappedTokens.get(0).getOutRelations().stream()
-									.filter((SRelation r) -> r instanceof STextualRelation).findAny();
-							if (!optRelation.isPresent()) {
-								throw new PepperModuleDataException(this, ERR_MSG_NO_TEXTUAL_RELATION);
-							}
-							STextualRelation tRel = (STextualRelation) optRelation.get();
-							start = tRel.getStart();
-						}
+						int start = getTextualRelation(overlappedTokens.get(0)).getStart();
 						startValues[colIx].add(start);
-						int end; {
-							Optional<SRelation> optRelation = overlappedTokens.get(overlappedTokens.size() - 1).getOutRelations().stream()
-									.filter((SRelation r) -> r instanceof STextualRelation).findAny();
-							if (!optRelation.isPresent()) {
-								throw new PepperModuleDataException(this, ERR_MSG_NO_TEXTUAL_RELATION);
-							}
-							STextualRelation tRel = (STextualRelation) optRelation.get();
-							end = tRel.getEnd();							
-						}
+						int end = getTextualRelation(overlappedTokens.get(overlappedTokens.size() - 1)).getEnd();
 						endValues[colIx].add(end);
 						nodesByCoords[start][colIx] = node;				
 					}
@@ -272,96 +296,102 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 						}
 					}
 				}
-				annoQNameToColIx.put(null, orderNames.size() - 1);
+				setColumnIndex(null, orderNames.size() - 1);
 			}
 		}
-		int lastUsedIndex = Collections.max(annoQNameToColIx.values());
+		int lastUsedIndex = nextColIx - 1;
 		for (Entry<String, Integer> entry : columnOrder.entrySet()) {
 			createColumn(entry.getValue() + lastUsedIndex + 1, entry.getKey());
 		}
+		createAnnotationColumns();
 		for (Entry<SToken, int[]> entry : tokToCoords.entrySet()) {
 			SToken sTok = entry.getKey();
 			int[] coords = entry.getValue();
 			for (SAnnotation sAnno : sTok.getAnnotations()) {
 				String qName = sAnno.getQName();
-				Integer colIx = getColumnIndex(qName);
-				createEntry(coords[0], colIx, coords[2], sAnno.getValue_STEXT());
+				if (!ignoreNames.contains(qName)) {
+					Integer colIx = getColumnIndex(qName);
+					createEntry(coords[0], colIx, coords[2], sAnno.getValue_STEXT());
+				}
 			}
 		}
 	}
 	
-	private Map<String, Iterator<SNode>> getTokenGroups(Set<String> tokNames) {
-		Map<String, SNode> startNodes = getStartNodes(tokNames);
-		Map<String, Iterator<SNode>> tokenizations = new HashMap<>();
-		for (String name : tokNames) {
-			final SNode startNode = startNodes.get(name);
-			tokenizations.put(name, new Iterator<SNode>() {
-				private final String tokenizationName = name;
-				private SNode pointer = null;
-				
-				@Override
-				public boolean hasNext() {
-					if (pointer == null) {
-						return true;
-					}
-					Optional<SRelation> next = getOrderRelOpt(pointer);
-					return next.isPresent() && next.get().getTarget() != null;
-				}
-
-				@Override
-				public SNode next() {					
-					if (pointer == null) {
-						pointer = startNode;
-						return startNode;
-					}
-					pointer = (SNode) getOrderRelOpt(pointer).get().getTarget();
-					return pointer;
-				}
-				
-				private Optional<SRelation> getOrderRelOpt(SNode node) {
-					return node.getOutRelations().stream()
-							.filter((SRelation r) -> r instanceof SOrderRelation && tokenizationName.equals(r.getType()))
-							.findAny();
+	/**
+	 * @param sTok
+	 * @return the textual relation of the token from the relation index
+	 */
+	private STextualRelation getTextualRelation(SToken sTok) {
+		STextualRelation tRel = relationIndex.getTextualRelation(sTok);
+		if (tRel == null) {
+			throw new PepperModuleDataException(this, ERR_MSG_NO_TEXTUAL_RELATION);
+		}
+		return tRel;
+	}
+	
+	/**
+	 * Creates the columns of the annotations, which are not ignored, of the laid out tokens and of the
+	 * spans over them in one pass before their values are placed. Columns are created in the order of
+	 * the tokens and spans of the graph, only for annotations whose values are placed.
+	 */
+	private void createAnnotationColumns() {
+		for (SToken sTok : getDocumentGraph().getTokens()) {
+			if (tokToCoords.containsKey(sTok)) {
+				createAnnotationColumns(sTok.getAnnotations());
+			}
+		}
+		for (SSpan sSpan : getDocumentGraph().getSpans()) {
+			for (SToken sTok : getOverlappedTokens(sSpan)) {
+				if (tokToCoords.containsKey(sTok)) {
+					createAnnotationColumns(sSpan.getAnnotations());
+					break;
 				}
-			});			
+			}
 		}
-		return tokenizations;
 	}
 	
-	private Map<String, SNode> getStartNodes(Set<String> orderNames) {
-		Map<String, SNode> startNodes = new HashMap<>();
-		List<SRelation> orderRels = getDocumentGraph().getRelations().stream()
-				.filter((SRelation r) -> r instanceof SOrderRelation)
-				.collect(Collectors.toList());
-		for (String name : orderNames) {
-			startNodes.put(name, recTraceOrigin((SNode) orderRels.stream().filter((SRelation r) -> name.equals(r.getType())).findAny().get().getSource(), name)); 
+	private void createAnnotationColumns(Collection<SAnnotation> annotations) {
+		for (SAnnotation sAnno : annotations) {
+			if (!ignoreNames.contains(sAnno.getQName())) {
+				getColumnIndex(sAnno.getQName());
+			}
 		}
-		return startNodes;
 	}
 	
-	private SNode recTraceOrigin(SNode startNode, String typeName) {
-		Optional<SRelation> inRelOpt = startNode.getInRelations().stream().filter((SRelation r) -> r instanceof SOrderRelation && typeName.equals(r.getType())).findAny();
-		if (inRelOpt.isPresent() && inRelOpt.get().getSource() != null) {
-			return recTraceOrigin(((SOrderRelation) inRelOpt.get()).getSource(), typeName);
+	/**
+	 * @param sSpan
+	 * @return the tokens overlapped by the span, which are computed once per span
+	 */
+	private List<SToken> getOverlappedTokens(SSpan sSpan) {
+		List<SToken> overlappedTokens = spanTokens.get(sSpan);
+		if (overlappedTokens == null) {
+			overlappedTokens = getDocumentGraph().getOverlappedTokens(sSpan);
+			spanTokens.put(sSpan, overlappedTokens);
 		}
-		return startNode;
+		return overlappedTokens;
 	}
 	
-	private void createColumn(int index, String name) {
+	private void setColumnIndex(String name, int index) {
 		annoQNameToColIx.put(name, index);
+		nextColIx = Math.max(nextColIx, index + 1);
+	}
+	
+	private void createColumn(int index, String name) {
+		setColumnIndex(name, index);
 		createEntry(0, index, 1, name);
 	}
 	
 	private int getColumnIndex(String annoQName) {
 		Integer colIx = annoQNameToColIx.get(annoQName);
 		if (colIx == null) {
-			colIx = Collections.max(annoQNameToColIx.values()) + 1;
+			colIx = nextColIx;
 			createColumn(colIx, annoQName);
 		}
 		return colIx;
 	}
 	
 	/** 
+	 * Adds an entry to the layout, the cells are created by {@link #writeWorkbook()}.
 	 * @param rowIx
 	 * @param colIx
 	 * @param height
@@ -375,40 +405,74 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 		if (value == null) {
 			throw new PepperModuleDataException(this, ERR_MSG_NO_VALUE);
 		}
+		grid.add(rowIx, colIx, height, trimValues? value.trim() : value);
+		return new int[]{rowIx, colIx, height};
+	}
+	
+	/**
+	 * Creates the rows of the sheet from the grid in ascending order, so that a streaming workbook
+	 * only keeps a window of rows in memory. Each cell covered by an entry is created with the default
+	 * style, the cells of an entry of more than one row are merged. Overlapping merged regions are
+	 * rejected with an {@link IllegalStateException} by both kinds of workbooks.
+	 */
+	private void renderGrid() throws IOException {
 		Sheet sheet = getSheet();
 		if (sheet == null) {
 			throw new PepperModuleDataException(this, ERR_MSG_NO_SHEET);
 		}
-		for (int ri = 0; ri < height; ri++) {
-			Row row = sheet.getRow(rowIx + ri);
-			if (row == null) {
-				row = sheet.createRow(rowIx + ri);
+		grid.visit(new SheetGrid.CellVisitor() {
+			private Row row = null;
+			/** last row of the last merged region of each column, the regions never span columns */
+			private int[] mergedUntil = new int[0];
+			
+			@Override
+			public void startRow(int rowIx) {
+				row = sheet.createRow(rowIx);
 			}
-			Cell cell = row.getCell(colIx);
-			if (cell == null) {
-				cell = row.createCell(colIx);
+			
+			@Override
+			public void cell(int colIx, String value, int height, String coveringValue) {
+				Cell cell = row.createCell(colIx);
 				cell.setCellStyle(cellStyle);
+				if (value != null) {
+					cell.setCellValue(value);
+				}
+				if (height > 1) {
+					CellRangeAddress region = new CellRangeAddress(row.getRowNum(), row.getRowNum() + height - 1, colIx, colIx);
+					if (streaming) {
+						// the overlap check of POI compares each region with all others, but the regions
+						// are created in ascending order of their rows
+						if (colIx >= mergedUntil.length) {
+							int oldLength = mergedUntil.length;
+							mergedUntil = Arrays.copyOf(mergedUntil, Math.max(colIx + 1, oldLength * 2));
+							Arrays.fill(mergedUntil, oldLength, mergedUntil.length, -1);
+						}
+						if (row.getRowNum() <= mergedUntil[colIx]) {
+							throw new IllegalStateException("Attempted to add merged region " + region.formatAsString()
+									+ ", but it overlaps with the merged region above it in the same column.");
+						}
+						mergedUntil[colIx] = region.getLastRow();
+						sheet.addMergedRegionUnsafe(region);
+					} else {
+						sheet.addMergedRegion(region);
+					}
+				}
 			}
-		}
-		Row row = sheet.getRow(rowIx);
-		if (row == null) {
-			throw new PepperModuleDataException(this, ERR_MSG_NO_ROW);
-		}
-		Cell cell = row.getCell(colIx);
-		if (cell == null) {
-			throw new PepperModuleDataException(this, ERR_MSG_NO_CELL);
-		}
-		cell.setCellValue(trimValues? value.trim() : value);
-		if (height > 1) {
-			sheet.addMergedRegion(new CellRangeAddress(rowIx, rowIx + height - 1, colIx, colIx));
-		}
-		return new int[]{rowIx, colIx, height};
+			
+			@Override
+			public void endRow(int rowIx) {
+				row = null;
+			}
+		});
 	}
 	
-	private void mapSpansAndAnnotations() {
+	/**
+	 * Maps the span annotations to the rows of the overlapped tokens, requires {@link #mapTokenizations()}.
+	 */
+	protected void mapSpansAndAnnotations() {
 		List<SSpan> spans = getDocumentGraph().getSpans();
 		for (SSpan sSpan : spans) {
-			List<SToken> overlappedTokens = getDocumentGraph().getOverlappedTokens(sSpan);
+			List<SToken> overlappedTokens = getOverlappedTokens(sSpan);
 			int minRow = Integer.MAX_VALUE;
 			int maxRow = 0;
 			for (SToken sTok : overlappedTokens) {
@@ -442,23 +506,51 @@ public class Salt2SpreadsheetMapper extends PepperMapperImpl implements PepperMa
 				throw new PepperModuleDataException(this, ERR_MSG_DOCNAME_IN_USE);
 			}
 			int colIx = getColumnIndex(docColTitle);
-			createEntry(1, colIx, getSheet().getLastRowNum(), getDocument().getName());
+			createEntry(1, colIx, grid.getLastRowIx(), getDocument().getName());
 		}
 	}
 	
-	private void writeWorkbook() {
+	/**
+	 * Writes the grid to the resource URI of the document, as a new workbook or as delimited text
+	 * depending on the configured format.
+	 */
+	protected void writeWorkbook() {
+		File outputFile = null;
+		if (getResourceURI().toFileString() != null) {
+			outputFile = new File(getResourceURI().toFileString());
+		} else {
+			outputFile = new File(getResourceURI().toString());
+		}
+		if (format != FormatValue.xlsx) {
+			writeDelimitedText(outputFile);
+			return;
+		}
 		try {
-			File outputFile = null;
-			if (getResourceURI().toFileString() != null) {
-				outputFile = new File(getResourceURI().toFileString());
-			} else {
-				outputFile = new File(getResourceURI().toString());
+			createCellStyle();
+			renderGrid();
+			try (OutputStream outStream = new FileOutputStream(outputFile)) {
+				getWorkbook().write(outStream);
 			}
-			OutputStream outStream = new FileOutputStream(outputFile);
-			getWorkbook().write(outStream);
-			outStream.close();
 		} catch (IOException e) {
 			throw new PepperModuleDataException(this, "Could not write workbook to " + getResourceURI().toFileString());
+		} finally {
+			if (workbook instanceof SXSSFWorkbook) {
+				// delete the temporary files of the flushed rows
+				((SXSSFWorkbook) workbook).dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Streams the rows of the grid to a csv or tsv file encoded in UTF-8, no workbook is created.
+	 * 
+	 * @param outputFile
+	 */
+	private void writeDelimitedText(File outputFile) {
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+			grid.visit(new DelimitedTextWriter(out, format == FormatValue.tsv, grid.getColumnCount(), mergedCells, continuationMarker));
+		} catch (IOException e) {
+			throw new PepperModuleDataException(this, "Could not write " + format + " file to " + outputFile);
 		}
 	}
 }
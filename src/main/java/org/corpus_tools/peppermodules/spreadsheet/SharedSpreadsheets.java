@@ -0,0 +1,256 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * The spreadsheets opened once for several documents, e.g. for the documents created for the
+ * sheets of one workbook. A spreadsheet is opened by the first mapper acquiring it and closed, when
+ * each of the registered documents released it. Mappers of different sheets read the shared
+ * spreadsheet concurrently, if the reader allows it, otherwise the sheets are read one after the
+ * other.
+ */
+public class SharedSpreadsheets {
+
+	/**
+	 * Opens a spreadsheet, when it is acquired for the first time.
+	 */
+	public interface Opener {
+		public SpreadsheetReader open(File file) throws IOException;
+	}
+
+	private final Map<File, Entry> entries = new HashMap<>();
+
+	/**
+	 * The importer and the mappers have to use the same key for a spreadsheet, while the resource URI
+	 * of a document may name one of its sheets.
+	 *
+	 * @param resource the resource URI of a document, the fragment naming the sheet is ignored
+	 * @return the spreadsheet file the document is read from
+	 */
+	public static File getFile(URI resource) {
+		return new File(resource.trimFragment().toFileString());
+	}
+
+	private static class Entry {
+		/** number of documents, which did not release the spreadsheet yet */
+		private int users;
+		private SpreadsheetReader reader = null;
+
+		private Entry(int users) {
+			this.users = users;
+		}
+	}
+
+	/**
+	 * @param file the spreadsheet file
+	 * @param users number of documents which read the spreadsheet, each of them has to release it
+	 */
+	public synchronized void register(File file, int users) {
+		Entry entry = entries.get(file);
+		if (entry == null) {
+			entries.put(file, new Entry(users));
+		} else {
+			entry.users += users;
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return true, if the file was registered and was not released by all of its documents yet
+	 */
+	public synchronized boolean isRegistered(File file) {
+		return entries.containsKey(file);
+	}
+
+	/**
+	 * Returns the shared reader of the given file, the reader is opened if this is the first call. The
+	 * returned reader releases the file on closing, so it is released exactly once per document if it
+	 * is used in a try-with-resources statement.
+	 *
+	 * @param file a registered file
+	 * @param opener opens the file, if it is not open yet
+	 * @return a reader of the shared spreadsheet
+	 * @throws IOException if the file cannot be opened, the file is released in this case
+	 */
+	public SpreadsheetReader acquire(File file, Opener opener) throws IOException {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(file);
+		}
+		if (entry == null) {
+			throw new IllegalStateException("The file '" + file + "' is not registered.");
+		}
+		SpreadsheetReader reader;
+		// the workbooks of different files are opened concurrently
+		synchronized (entry) {
+			try {
+				if (entry.reader == null) {
+					entry.reader = opener.open(file);
+				}
+			} catch (IOException | RuntimeException e) {
+				release(file);
+				throw e;
+			}
+			reader = entry.reader;
+		}
+		return new SharedReader(file, reader);
+	}
+
+	/**
+	 * Releases the file for one document, e.g. if the document was not read from the file at all. The
+	 * file is closed, when each registered document released it.
+	 *
+	 * @param file
+	 */
+	public void release(File file) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(file);
+			if (entry == null || --entry.users > 0) {
+				return;
+			}
+			entries.remove(file);
+		}
+		synchronized (entry) {
+			closeQuietly(file, entry.reader);
+			entry.reader = null;
+		}
+	}
+
+	/**
+	 * Closes all spreadsheets, which are still open, e.g. since a mapper failed.
+	 */
+	public void closeAll() {
+		List<Map.Entry<File, Entry>> open;
+		synchronized (this) {
+			open = new ArrayList<>(entries.entrySet());
+			entries.clear();
+		}
+		for (Map.Entry<File, Entry> entry : open) {
+			synchronized (entry.getValue()) {
+				closeQuietly(entry.getKey(), entry.getValue().reader);
+				entry.getValue().reader = null;
+			}
+		}
+	}
+
+	private static void closeQuietly(File file, SpreadsheetReader reader) {
+		if (reader == null) {
+			return;
+		}
+		try {
+			reader.close();
+		} catch (IOException e) {
+			SpreadsheetImporter.logger.warn("Could not close file '" + file + "'.", e);
+		}
+	}
+
+	/**
+	 * The view of one document on a shared reader. Closing it releases the file instead of closing the
+	 * reader.
+	 */
+	private class SharedReader implements SpreadsheetReader {
+		private final File file;
+		private final SpreadsheetReader reader;
+		private boolean released = false;
+
+		private SharedReader(File file, SpreadsheetReader reader) {
+			this.file = file;
+			this.reader = reader;
+		}
+
+		@Override
+		public List<String> getSheetNames() throws IOException {
+			synchronized (reader) {
+				return reader.getSheetNames();
+			}
+		}
+
+		@Override
+		public SheetTable getSheet(int index) throws IOException {
+			return getSheet(index, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public SheetTable getSheet(int index, int maxRows) throws IOException {
+			if (reader.isConcurrent()) {
+				return reader.getSheet(index, maxRows);
+			}
+			synchronized (reader) {
+				return reader.getSheet(index, maxRows);
+			}
+		}
+
+		@Override
+		public SheetTable getSheet(String name, int maxRows) throws IOException {
+			if (reader.isConcurrent()) {
+				return reader.getSheet(name, maxRows);
+			}
+			synchronized (reader) {
+				return reader.getSheet(name, maxRows);
+			}
+		}
+
+		@Override
+		public SheetTable getSheet(String name) throws IOException {
+			return getSheet(name, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public boolean readSheet(int index, SheetRowHandler handler) throws IOException {
+			if (reader.isConcurrent()) {
+				return reader.readSheet(index, handler);
+			}
+			synchronized (reader) {
+				return reader.readSheet(index, handler);
+			}
+		}
+
+		@Override
+		public boolean readSheet(String name, SheetRowHandler handler) throws IOException {
+			if (reader.isConcurrent()) {
+				return reader.readSheet(name, handler);
+			}
+			synchronized (reader) {
+				return reader.readSheet(name, handler);
+			}
+		}
+
+		@Override
+		public boolean isConcurrent() {
+			return reader.isConcurrent();
+		}
+
+		@Override
+		public void close() {
+			if (!released) {
+				released = true;
+				release(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The layout of a sheet independent of any output format. Each entry places a value in a column from
+ * a start row on for a number of rows. The entries are stored by column in primitive arrays of start
+ * rows, heights and value ids, each distinct value is stored once. The grid is passed to a
+ * {@link CellVisitor} row by row in ascending order, so that it can be written by streaming writers.
+ */
+public class SheetGrid {
+
+	private static final Logger logger = LoggerFactory.getLogger(SheetGrid.class);
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Receives the cells of a grid row by row in ascending order and the cells of each row in
+	 * ascending order of their columns. Only rows covered by at least one entry are visited.
+	 */
+	public interface CellVisitor {
+		public void startRow(int rowIx) throws IOException;
+
+		/**
+		 * @param colIx
+		 * @param value value of the entry starting in the cell, null if the cell is only covered by an
+		 *        entry starting in a row above
+		 * @param height number of rows of the entry starting in the cell, 0 if no entry starts in it
+		 * @param coveringValue value of the entry covering the cell, which is the value of the entry
+		 *        starting in the cell if there is one
+		 */
+		public void cell(int colIx, String value, int height, String coveringValue) throws IOException;
+
+		public void endRow(int rowIx) throws IOException;
+	}
+
+	/**
+	 * The entries of one column in the order of their creation.
+	 */
+	private static class Column {
+		private int[] rowStarts = new int[INITIAL_CAPACITY];
+		private int[] heights = new int[INITIAL_CAPACITY];
+		private int[] valueIds = new int[INITIAL_CAPACITY];
+		private int size = 0;
+
+		private void add(int rowIx, int height, int valueId) {
+			if (size == rowStarts.length) {
+				int capacity = size * 2;
+				rowStarts = Arrays.copyOf(rowStarts, capacity);
+				heights = Arrays.copyOf(heights, capacity);
+				valueIds = Arrays.copyOf(valueIds, capacity);
+			}
+			rowStarts[size] = rowIx;
+			heights[size] = height;
+			valueIds[size] = valueId;
+			size++;
+		}
+
+		/**
+		 * @return the indexes of the entries ordered by their start rows, entries starting in the same
+		 *         row keep the order of their creation
+		 */
+		private int[] getOrder() {
+			boolean sorted = true;
+			for (int i = 1; i < size && sorted; i++) {
+				sorted = rowStarts[i - 1] <= rowStarts[i];
+			}
+			int[] order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			if (!sorted) {
+				// sort by start row and creation, packed into one long to sort primitives
+				long[] keys = new long[size];
+				for (int i = 0; i < size; i++) {
+					keys[i] = ((long) rowStarts[i] << 32) | i;
+				}
+				Arrays.sort(keys);
+				for (int i = 0; i < size; i++) {
+					order[i] = (int) keys[i];
+				}
+			}
+			return order;
+		}
+	}
+
+	private Column[] columns = new Column[0];
+	private final List<String> values = new ArrayList<>();
+	private final Map<String, Integer> valueIds = new HashMap<>();
+	private int lastRowIx = 0;
+	private int size = 0;
+
+	/**
+	 * @param rowIx first row of the entry
+	 * @param colIx column of the entry
+	 * @param height number of rows of the entry, an entry covers at least one row
+	 * @param value
+	 */
+	public void add(int rowIx, int colIx, int height, String value) {
+		if (colIx >= columns.length) {
+			columns = Arrays.copyOf(columns, Math.max(colIx + 1, columns.length * 2));
+		}
+		Column column = columns[colIx];
+		if (column == null) {
+			column = new Column();
+			columns[colIx] = column;
+		}
+		Integer valueId = valueIds.get(value);
+		if (valueId == null) {
+			valueId = values.size();
+			values.add(value);
+			valueIds.put(value, valueId);
+		}
+		column.add(rowIx, height, valueId);
+		lastRowIx = Math.max(lastRowIx, rowIx + Math.max(height, 1) - 1);
+		size++;
+	}
+
+	/**
+	 * @return index of the last row covered by an entry
+	 */
+	public int getLastRowIx() {
+		return lastRowIx;
+	}
+
+	/**
+	 * @return the number of columns up to the last column holding an entry
+	 */
+	public int getColumnCount() {
+		int count = columns.length;
+		while (count > 0 && columns[count - 1] == null) {
+			count--;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of distinct values
+	 */
+	public int getValueCount() {
+		return values.size();
+	}
+
+	/**
+	 * Passes the cells to the visitor row by row. A cell in which several entries start gets the value
+	 * and height of the entry created last, the other entries are reported as a warning. A cell covered
+	 * by entries starting above gets the value of the one reaching furthest.
+	 *
+	 * @param visitor
+	 * @throws IOException if the visitor fails
+	 */
+	public void visit(CellVisitor visitor) throws IOException {
+		int columnCount = getColumnCount();
+		int[][] orders = new int[columnCount][];
+		int[] cursors = new int[columnCount];
+		int[] coveredUntil = new int[columnCount];
+		int[] coveringValueIds = new int[columnCount];
+		for (int c = 0; c < columnCount; c++) {
+			orders[c] = columns[c] == null ? new int[0] : columns[c].getOrder();
+			coveredUntil[c] = -1;
+		}
+		int rowIx = 0;
+		while (true) {
+			// skip the rows without any entry
+			int nextRowIx = Integer.MAX_VALUE;
+			for (int c = 0; c < columnCount; c++) {
+				if (coveredUntil[c] >= rowIx) {
+					nextRowIx = rowIx;
+					break;
+				}
+				if (cursors[c] < orders[c].length) {
+					nextRowIx = Math.min(nextRowIx, columns[c].rowStarts[orders[c][cursors[c]]]);
+				}
+			}
+			if (nextRowIx == Integer.MAX_VALUE) {
+				return;
+			}
+			rowIx = Math.max(rowIx, nextRowIx);
+			visitor.startRow(rowIx);
+			for (int c = 0; c < columnCount; c++) {
+				Column column = columns[c];
+				int[] order = orders[c];
+				int valueId = -1;
+				int height = 0;
+				while (cursors[c] < order.length && column.rowStarts[order[cursors[c]]] == rowIx) {
+					int entryIx = order[cursors[c]++];
+					if (valueId >= 0) {
+						logger.warn("Several entries start in row " + (rowIx + 1) + " of column " + (c + 1)
+								+ ", the value \"" + values.get(valueId) + "\" spanning " + height
+								+ " rows is replaced by the following entry.");
+					}
+					valueId = column.valueIds[entryIx];
+					height = column.heights[entryIx];
+					int entryLastRowIx = rowIx + Math.max(height, 1) - 1;
+					if (entryLastRowIx >= coveredUntil[c]) {
+						// the rows below are covered by the entry reaching furthest
+						coveredUntil[c] = entryLastRowIx;
+						coveringValueIds[c] = valueId;
+					}
+				}
+				if (coveredUntil[c] >= rowIx) {
+					String value = valueId < 0 ? null : values.get(valueId);
+					visitor.cell(c, value, height, value != null ? value : values.get(coveringValueIds[c]));
+				}
+			}
+			visitor.endRow(rowIx);
+			rowIx++;
+		}
+	}
+}
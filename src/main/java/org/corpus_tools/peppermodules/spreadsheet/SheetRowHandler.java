@@ -0,0 +1,40 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Receives the rows of a sheet one after another while the sheet is read, so that event based
+ * readers do not have to hold the cells of the whole sheet.
+ */
+public interface SheetRowHandler {
+
+	/**
+	 * @param rowNum (0-based) index of the row, the rows are passed in ascending order and rows which
+	 *        are not defined in the sheet are skipped
+	 * @param values the formatted values by column, null for cells which do not exist. The array is
+	 *        created for this row only, so the handler may keep it.
+	 */
+	public void row(int rowNum, String[] values);
+
+	/**
+	 * @param region a merged region of the sheet, regions may be passed after the rows they cover
+	 */
+	public void mergedRegion(CellRangeAddress region);
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Read access to the cells of a single sheet, independent of the POI model the sheet was read with.
+ * All cell values are already formatted as they are displayed in the spreadsheet.
+ */
+public interface SheetTable {
+
+	/**
+	 * @return the name of the sheet
+	 */
+	public String getName();
+
+	/**
+	 * @return the (0-based) index of the last row containing data
+	 */
+	public int getLastRowNum();
+
+	/**
+	 * @return the number of rows actually defined in the sheet
+	 */
+	public int getPhysicalNumberOfRows();
+
+	/**
+	 * @param rowNum (0-based) index of the row
+	 * @return the number of cells actually defined in the row, 0 if the row does not exist
+	 */
+	public int getPhysicalNumberOfCells(int rowNum);
+
+	/**
+	 * @param rowNum (0-based) index of the row
+	 * @return the index of the last cell of the row plus one, 0 if the row does not exist
+	 */
+	public int getLastCellNum(int rowNum);
+
+	/**
+	 * @param rowNum (0-based) index of the row
+	 * @return true, if the row is defined in the sheet
+	 */
+	public boolean hasRow(int rowNum);
+
+	/**
+	 * @param rowNum (0-based) index of the row
+	 * @param colNum (0-based) index of the column
+	 * @return the formatted value of the cell, null if the cell does not exist
+	 */
+	public String getCellValue(int rowNum, int colNum);
+
+	/**
+	 * Returns the formatted values of all cells of a row at once, which saves looking up the row for
+	 * each of its cells.
+	 * 
+	 * @param rowNum (0-based) index of the row
+	 * @return the formatted values by column, null for cells which do not exist, the array has the
+	 *         length {@link #getLastCellNum(int)} and must not be modified. Null if the row does not
+	 *         exist.
+	 */
+	public String[] getRowValues(int rowNum);
+
+	/**
+	 * @return all merged regions of the sheet, never null
+	 */
+	public List<CellRangeAddress> getMergedRegions();
+}
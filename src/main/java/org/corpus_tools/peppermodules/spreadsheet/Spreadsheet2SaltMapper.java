@@ -16,49 +16,27 @@
 package org.corpus_tools.peppermodules.spreadsheet;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Table;
-import com.google.common.collect.Tables;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
-import org.apache.commons.lang3.tuple.Pair;
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.ss.util.CellReference;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
 import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.salt.SALT_TYPE;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocumentGraph;
-import org.corpus_tools.salt.common.SOrderRelation;
 import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.STextualDS;
 import org.corpus_tools.salt.common.STimeline;
-import org.corpus_tools.salt.common.STimelineRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SLayer;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.util.DataSourceSequence;
-import org.corpus_tools.salt.util.SaltUtil;
 import org.eclipse.emf.common.util.URI;
 
 /**
@@ -68,26 +46,128 @@ import org.eclipse.emf.common.util.URI;
  */
 public class Spreadsheet2SaltMapper extends PepperMapperImpl implements PepperMapper {
 
+  /** namespace of the meta annotation holding the tier names in the metadata only mode */
+  public static final String TIERS_NAMESPACE = "spreadsheet";
+  /** name of the meta annotation holding the tier names in the metadata only mode */
+  public static final String TIERS_NAME = "tiers";
+
+  /** metrics of the current document */
+  private ImportMetrics metrics = new ImportMetrics(null, false);
+  /** metrics of the whole import, the metrics of each document are added to them */
+  private ImportMetrics importMetrics = null;
+  /** cache of imported documents, null if no cache is used */
+  private ImportCache importCache = null;
+  /** pool of the tier names and annotation values shared by the documents of an import */
+  private StringPool stringPool = StringPool.NONE;
+  /** workbooks shared with the mappers of their other sheets, null if they are not shared */
+  private SharedSpreadsheets sharedSpreadsheets = null;
+
   public SpreadsheetImporterProperties getProps() {
     return ((SpreadsheetImporterProperties) this.getProperties());
   }
 
+  /**
+   * @return the metrics of the mapped document, only filled if the property 'metrics' is set
+   */
+  public ImportMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @param importMetrics metrics of the whole import, the metrics of the document are added to them
+   */
+  public void setImportMetrics(ImportMetrics importMetrics) {
+    this.importMetrics = importMetrics;
+  }
+
+  /**
+   * @param importCache cache the document is loaded from or stored in, null if no cache is used
+   */
+  public void setImportCache(ImportCache importCache) {
+    this.importCache = importCache;
+  }
+
+  /**
+   * @param stringPool pool of the tier names and annotation values shared by all mappers of an
+   *        import
+   */
+  public void setStringPool(StringPool stringPool) {
+    this.stringPool = stringPool == null ? StringPool.NONE : stringPool;
+  }
+
+  /**
+   * @param sharedSpreadsheets workbooks opened once for the documents of all of their sheets
+   */
+  public void setSharedSpreadsheets(SharedSpreadsheets sharedSpreadsheets) {
+    this.sharedSpreadsheets = sharedSpreadsheets;
+  }
+
+  /**
+   * @return the name of the sheet the document is imported from, which is the fragment of the
+   *         resource URI if the importer created one document per sheet, null otherwise
+   */
+  public String getSheetName() {
+    String fragment = getResourceURI().fragment();
+    return fragment == null || fragment.isEmpty() ? null : URI.decode(fragment);
+  }
+
   @Override
   public DOCUMENT_STATUS mapSDocument() {
     URI resourceURI = getResourceURI();
     String resource = resourceURI.path();
-    readSpreadsheetResource(resource);
+    metrics = new ImportMetrics(resourceURI.lastSegment(), getProps().getMetrics());
+    String cacheKey = getCacheKey(new File(resource));
+    if (cacheKey != null && importCache.load(cacheKey, getDocument())) {
+      SpreadsheetImporter.logger.debug("Loaded the file {} from the import cache.", resource);
+      if (sharedSpreadsheets != null && getSheetName() != null) {
+        // the shared workbook is not needed by this document
+        sharedSpreadsheets.release(SharedSpreadsheets.getFile(resourceURI));
+      }
+      setProgress(1.0);
+    } else if (readSpreadsheetResource(resource) && cacheKey != null) {
+      try {
+        importCache.store(cacheKey, getDocument());
+      } catch (IOException e) {
+        SpreadsheetImporter.logger.warn("Could not store '" + resource + "' in the import cache.", e);
+      }
+    }
 
+    if (metrics.isEnabled()) {
+      metrics.count(ImportMetrics.Counter.DOCUMENTS, 1);
+      SpreadsheetImporter.logger.info("Import metrics: {}", metrics);
+      if (importMetrics != null) {
+        importMetrics.add(metrics);
+      }
+    }
     return DOCUMENT_STATUS.COMPLETED;
   }
 
+  /**
+   * @param file the file of the document
+   * @return the key of the document in the import cache, null if no cache is used or the file
+   *         cannot be read
+   */
+  private String getCacheKey(File file) {
+    if (importCache == null) {
+      return null;
+    }
+    String documentId = getDocument().getId() != null ? getDocument().getId() : getDocument().getName();
+    try {
+      return ImportCache.getKey(file, documentId, getProps());
+    } catch (IOException e) {
+      SpreadsheetImporter.logger.warn("Could not compute the cache key of '" + file + "'.", e);
+      return null;
+    }
+  }
+
   /**
    * open document, create document graph and timeline in salt, print logging infos, throw warning,
    * if there are any problems while handling the document
    * 
    * @param resource string of the document path
+   * @return false, if the document could not be opened
    */
-  private void readSpreadsheetResource(String resource) {
+  private boolean readSpreadsheetResource(String resource) {
     getDocument().setDocumentGraph(SaltFactory.createSDocumentGraph());
 
     STimeline timeline = SaltFactory.createSTimeline();
@@ -96,60 +176,128 @@ public class Spreadsheet2SaltMapper extends PepperMapperImpl implements PepperMa
     SpreadsheetImporter.logger.debug("Importing the file {}.", resource);
     SpreadsheetImporter.logger.info(resource);
 
-    // get the excel files here
-    InputStream excelFileStream;
-    File excelFile;
-    Workbook workbook = null;
-
-    try {
-      excelFile = new File(resource);
-      excelFileStream = new FileInputStream(excelFile);
-      workbook = WorkbookFactory.create(excelFileStream);
-      workbook.close();
-
-    } catch (IOException | EncryptedDocumentException e) {
+    // get the excel files here, the workbook is read from disk and closed when the document is
+    // mapped
+    long start = metrics.start();
+    try (SpreadsheetReader workbook = openDocumentSpreadsheet(new File(resource))) {
+      metrics.stop(ImportMetrics.Phase.OPEN, start);
+      if (getProps().getMetadataOnly()) {
+        mapHeaderAndMetaData(workbook);
+      } else {
+        getPrimTextTiers(workbook, timeline);
+      }
+      return true;
+    } catch (IOException e) {
       SpreadsheetImporter.logger.warn("Could not open file '" + resource + "'.");
+      return false;
     }
+  }
 
-    getPrimTextTiers(workbook, timeline);
+  /**
+   * open the spreadsheet of the document, the workbook of a sheet document is shared with the
+   * documents of the other sheets
+   * 
+   * @param file
+   * @return
+   * @throws IOException
+   */
+  private SpreadsheetReader openDocumentSpreadsheet(File file) throws IOException {
+    if (sharedSpreadsheets != null && getSheetName() != null) {
+      File sharedFile = SharedSpreadsheets.getFile(getResourceURI());
+      if (sharedSpreadsheets.isRegistered(sharedFile)) {
+        return sharedSpreadsheets.acquire(sharedFile, this::openSpreadsheet);
+      }
+    }
+    return openSpreadsheet(file);
+  }
 
+  /**
+   * @param workbook
+   * @param maxRows the number of rows to read at least
+   * @return the sheet named in the resource URI, if the importer created one document per sheet, the
+   *         sheet given by the property 'corpusSheet' otherwise
+   */
+  private SheetTable getCorpusSheet(SpreadsheetReader workbook, int maxRows) throws IOException {
+    String sheetName = getSheetName();
+    if (sheetName != null) {
+      return workbook.getSheet(sheetName, maxRows);
+    }
+    // default ("Tabelle1"/ first sheet)
+    if (getProps().getCorpusSheet().equals("Tabelle1")) {
+      return workbook.getSheet(0, maxRows);
+    }
+    // get corpus sheet by name
+    return workbook.getSheet(getProps().getCorpusSheet(), maxRows);
   }
 
   /**
-   * Map the line number of a given token to the {@link STimeline}
+   * open the given spreadsheet file, csv and tsv files are always tokenized directly, xlsx and xls
+   * files are read with the streaming event model if the property 'streaming' is set
    * 
-   * @param lastRow
-   * @param timeline
+   * @param excelFile
+   * @return
+   * @throws IOException
    */
-  private void mapLinenumber2STimeline(int lastRow, STimeline timeline) {
-    int currRow = 1;
-    while (currRow <= lastRow) {
-      timeline.increasePointOfTime();
-      currRow++;
+  private SpreadsheetReader openSpreadsheet(File excelFile) throws IOException {
+    if (DelimitedTextReader.isDelimitedText(excelFile)) {
+      return new DelimitedTextReader(excelFile, getProps().getContinuationMarker());
+    }
+    if (getProps().getStreaming()) {
+      FileMagic fileMagic = FileMagic.valueOf(excelFile);
+      if (fileMagic == FileMagic.OOXML) {
+        return new XlsxStreamingReader(excelFile);
+      } else if (fileMagic == FileMagic.OLE2) {
+        return new XlsStreamingReader(excelFile);
+      }
     }
+    return new WorkbookReader(excelFile);
   }
 
   /**
-   * Create a read-only lookup table for the merged cells.
+   * Only read the header row of the corpus sheet and the meta data, the names of the tiers are added
+   * to the document as meta annotation {@value #TIERS_NAMESPACE}::{@value #TIERS_NAME} and no
+   * tokens or spans are created
    * 
-   * @param mergedCells
-   * @return
+   * @param workbook
    */
-  private Table<Integer, Integer, CellRangeAddress> calculateMergedCellIndex(
-      List<CellRangeAddress> mergedCells) {
-
-    Table<Integer, Integer, CellRangeAddress> idx = HashBasedTable.create();
-    if (mergedCells != null) {
-      for (CellRangeAddress cell : mergedCells) {
-        // add each underlying row/column of the range
-        for (int i = cell.getFirstRow(); i <= cell.getLastRow(); i++) {
-          for (int j = cell.getFirstColumn(); j <= cell.getLastColumn(); j++) {
-            idx.put(i, j, cell);
+  private void mapHeaderAndMetaData(SpreadsheetReader workbook) throws IOException {
+    // the file was opened already, looking up the sheet is part of reading its header
+    long start = metrics.start();
+    SheetTable corpusSheet = getCorpusSheet(workbook, 1);
+    if (corpusSheet != null) {
+      List<String> tierNames = new ArrayList<>();
+      String[] header = corpusSheet.getRowValues(0);
+      if (header != null) {
+        for (String tierName : header) {
+          if (tierName != null && !tierName.trim().isEmpty()) {
+            tierNames.add(tierName.trim());
           }
         }
       }
+      if (getDocument().getMetaAnnotation(TIERS_NAMESPACE + "::" + TIERS_NAME) == null) {
+        getDocument().createMetaAnnotation(TIERS_NAMESPACE, TIERS_NAME, Joiner.on(", ").join(tierNames));
+      }
+    }
+    metrics.stop(ImportMetrics.Phase.HEADER, start);
+    if (getProps().getMetaAnnotation()) {
+      start = metrics.start();
+      setDocMetaData(workbook);
+      metrics.stop(ImportMetrics.Phase.METADATA, start);
+    }
+    setProgress(1.0);
+  }
+
+  /**
+   * Map the line number of a given token to the {@link STimeline}
+   * 
+   * @param lastRow
+   * @param timeline
+   */
+  private void mapLinenumber2STimeline(int lastRow, STimeline timeline) {
+    // one point of time for each row except the header
+    if (lastRow > 0) {
+      timeline.increasePointOfTime(lastRow);
     }
-    return Tables.unmodifiableTable(idx);
   }
 
   /**
@@ -158,529 +306,272 @@ public class Spreadsheet2SaltMapper extends PepperMapperImpl implements PepperMa
    * @param workbook
    * @param timeline
    */
-  private void getPrimTextTiers(Workbook workbook, STimeline timeline) {
-    // get all primary text tiers
-    String primaryTextTier = getProps().getPrimaryText();
-    // seperate string of primary text tiers into list by commas
-    List<String> primaryTextTierList = Arrays.asList(primaryTextTier.split("\\s*,\\s*"));
-
-    TreeSet<String> annosWithoutPrim = new TreeSet<>();
-
+  private void getPrimTextTiers(SpreadsheetReader workbook, STimeline timeline)
+      throws IOException {
     if (workbook != null) {
-      // get corpus sheet
-      Sheet corpusSheet;
-      // default ("Tabelle1"/ first sheet)
-      if (getProps().getCorpusSheet().equals("Tabelle1")) {
-        corpusSheet = workbook.getSheetAt(0);
-      } else {
-        // get corpus sheet by name
-        corpusSheet = workbook.getSheet(getProps().getCorpusSheet());
-      }
-      // end of the excel file
-      int lastRow = corpusSheet.getLastRowNum();
-      mapLinenumber2STimeline(lastRow, timeline);
-
-      if (corpusSheet != null) {
-
-        // row with all names of the annotation tiers (first row)
-        Row headerRow = corpusSheet.getRow(0);
-        // List for each primary text and its annotations
-        HashMap<Integer, Integer> annoPrimRelations = new HashMap<>();
-
-        List<Integer> primTextPos = new ArrayList<Integer>();
-        if (headerRow != null) {
-
-
-          // iterate through all tiers and save tiers (column number)
-          // that hold the primary data
-
-          int currColumn = 0;
-
-
-          List<String> emptyColumnList = new ArrayList<>();
-          while (currColumn < headerRow.getPhysicalNumberOfCells()) {
-            if (headerRow.getCell(currColumn) == null
-                || headerRow.getCell(currColumn).toString().isEmpty()) {
-              String emptyColumn = CellReference.convertNumToColString(currColumn);
-              emptyColumnList.add(emptyColumn);
-              currColumn++;
-              continue;
-            } else {
-              if (!emptyColumnList.isEmpty()) {
-                for (String emptyColumn : emptyColumnList) {
-                  SpreadsheetImporter.logger.warn("Column \"" + emptyColumn + "\" in document \""
-                      + getResourceURI().lastSegment() + "\" has no name.");
-                }
-                emptyColumnList = new ArrayList<>();
-              }
-
-              boolean primWasFound = false;
-
-              String tierName = headerRow.getCell(currColumn).toString();
-              if (primaryTextTierList.contains(tierName)) {
-                // current tier contains primary text
-                // save all indexes of tier containing primary
-                // text
-                primTextPos.add(currColumn);
-                primWasFound = true;
-              } else {
-                // current tier contains (other) annotations
-                if (tierName.matches(".+\\[.+\\]") || getProps().getAnnoPrimRel() != null
-                    || getProps().getShortAnnoPrimRel() != null) {
-
-                  if (tierName.matches(".+\\[.+\\]")) {
-                    // the belonging primary text was set by
-                    // the annotator
-                    String primTier = tierName.split("\\[")[1].replace("]", "");
-                    setAnnotationPrimCouple(primTier, annoPrimRelations, currColumn, headerRow);
-                    primWasFound = true;
-                  }
-
-                  String primOfAnnoFromConfig = getPrimOfAnnoPrimRel(tierName.split("\\[")[0]);
-
-                  if (primOfAnnoFromConfig != null) {
-                    // current tier is an annotation and the
-                    // belonging primary text was set by
-                    // property
-                    setAnnotationPrimCouple(primOfAnnoFromConfig, annoPrimRelations, currColumn,
-                        headerRow);
-                    primWasFound = true;
-                  }
-
-                } else if (primaryTextTierList.size() == 1 && getProps().getAnnoPrimRel() == null
-                    && getProps().getShortAnnoPrimRel() == null) {
-                  // There is only one primary text so we can
-                  // safely assume this is the one
-                  // the annotation is connected to.
-                  setAnnotationPrimCouple(primaryTextTierList.get(0), annoPrimRelations, currColumn,
-                      headerRow);
-                  primWasFound = true;
-                }
-              }
-              if (!primWasFound) {
-                annosWithoutPrim.add(tierName);
-              }
-              currColumn++;
-            }
-          }
-        }
-
-        final Map<String, SLayer> layerTierCouples = getLayerTierCouples();
-        Table<Integer, Integer, CellRangeAddress> mergedCells = null;
-        if (corpusSheet.getNumMergedRegions() > 0) {
-          mergedCells = calculateMergedCellIndex(corpusSheet.getMergedRegions());
-        }
-        int progressTotalNumberOfColumns = 0;
-        if (!primTextPos.isEmpty()) {
-          progressTotalNumberOfColumns = setPrimText(corpusSheet, primTextPos, annoPrimRelations,
-              headerRow, mergedCells, layerTierCouples);
+      // the rows of the corpus sheet are passed to the builders of the tiers while it is read, so
+      // event based readers do not keep the cells of the sheet
+      CorpusSheetRows corpusSheetRows = new CorpusSheetRows();
+      long start = metrics.start();
+      long headerNanos = metrics.getNanos(ImportMetrics.Phase.HEADER);
+      boolean hasCorpusSheet = readCorpusSheet(workbook, corpusSheetRows);
+      // the header is built while the rows are read, its time is not counted twice
+      metrics.stop(ImportMetrics.Phase.ROWS,
+          start + metrics.getNanos(ImportMetrics.Phase.HEADER) - headerNanos);
+
+      if (hasCorpusSheet) {
+        corpusSheetRows.finish();
+        // end of the excel file
+        int lastRow = corpusSheetRows.getLastRowNum();
+        mapLinenumber2STimeline(lastRow, timeline);
+        TierSchema tierSchema = corpusSheetRows.getTierSchema();
+        List<PrimaryTextBuilder> primTextBuilders = corpusSheetRows.getPrimTextBuilders();
+        List<AnnotationTierBuilder> annoBuilders = corpusSheetRows.getAnnoBuilders();
+
+        start = metrics.start();
+        List<CellRangeAddress> mergedRegions = corpusSheetRows.getMergedRegions();
+        MergedRegionIndex mergedCells = new MergedRegionIndex(mergedRegions);
+        metrics.count(ImportMetrics.Counter.MERGED_REGIONS, mergedRegions.size());
+        metrics.stop(ImportMetrics.Phase.MERGED_INDEX, start);
+
+        Map<String, SLayer> layers = new HashMap<>();
+        // the tokens of each primary text column by their points of time
+        Map<Integer, TimelineTokenIndex> tokenIndexes = new HashMap<>();
+        if (!primTextBuilders.isEmpty()) {
+          setPrimText(primTextBuilders, layers, tokenIndexes, mergedCells, lastRow);
         } else {
           SpreadsheetImporter.logger
               .warn("No primary text for the document \"" + getResourceURI().lastSegment()
                   + "\" found. Please check the spelling of your properties.");
         }
 
-        setAnnotations(annoPrimRelations, corpusSheet, mergedCells, layerTierCouples,
-            progressTotalNumberOfColumns);
+        setAnnotations(annoBuilders, layers, tokenIndexes, mergedCells);
+        setProgress(1.0);
+
+        // report if any column was not included
+        if (!tierSchema.getUnboundTierNames().isEmpty()) {
+          SpreadsheetImporter.logger.warn(
+              "No primary text column found for columns\n- {}\nin document {}. This means these columns are not included in the conversion!",
+              Joiner.on("\n- ").join(tierSchema.getUnboundTierNames()),
+              getResourceURI().toFileString());
+        }
       }
       if (getProps().getMetaAnnotation()) {
+        start = metrics.start();
         setDocMetaData(workbook);
-      }
-
-      // report if any column was not included
-      if (!annosWithoutPrim.isEmpty()) {
-        SpreadsheetImporter.logger.warn(
-            "No primary text column found for columns\n- {}\nin document {}. This means these columns are not included in the conversion!",
-            Joiner.on("\n- ").join(annosWithoutPrim), getResourceURI().toFileString());
+        metrics.stop(ImportMetrics.Phase.METADATA, start);
       }
     }
   }
 
   /**
-   * Add annotations to the salt graph
+   * Passes the rows of the corpus sheet to the handler, the sheet is chosen as in
+   * {@link #getCorpusSheet(SpreadsheetReader, int)}
    * 
-   * @param annoPrimRelations
-   * @param corpusSheet
-   * @param mergedCells
-   * @param layerTierCouples
-   * @param progressProcessedNumberOfColumns
+   * @param workbook
+   * @param handler
+   * @return false, if there is no corpus sheet
    */
-  private void setAnnotations(HashMap<Integer, Integer> annoPrimRelations, Sheet corpusSheet,
-      Table<Integer, Integer, CellRangeAddress> mergedCells, Map<String, SLayer> layerTierCouples,
-      int progressProcessedNumberOfColumns) {
-    if (!annoPrimRelations.isEmpty()) {
-      Row headerRow = corpusSheet.getRow(0);
-      DataFormatter formatter = new DataFormatter();
-      int progressTotalNumberOfColumns = annoPrimRelations.keySet().size();
-
-      // Create a map to access all token for a given point of time efficently
-      Multimap<Integer, SToken> tokenByPointInTime = HashMultimap.create();
-      for (STimelineRelation timeRel : getDocument().getDocumentGraph().getTimelineRelations()) {
-        for (int i = timeRel.getStart(); i < timeRel.getEnd(); i++) {
-          tokenByPointInTime.put(i, timeRel.getSource());
-        }
-      }
-
-
-      for (int annoTier : annoPrimRelations.keySet()) {
-
-        SSpan annoSpan = null;
-        int currAnno = 1;
-
-        while (currAnno < corpusSheet.getPhysicalNumberOfRows()) {
-          String annoName = headerRow.getCell(annoTier).toString();
-          Row row = corpusSheet.getRow(currAnno);
-          if (row != null) {
-            Cell annoCell = row.getCell(annoTier);
-
-            if (annoCell != null && !annoCell.toString().isEmpty()) {
-              String annoText = "";
-              annoText = formatter.formatCellValue(annoCell);
-
-              int annoStart = currAnno - 1;
-              int annoEnd = getLastCell(annoCell, mergedCells);
-
-              Set<SToken> sTokens = new LinkedHashSet();
-              for (int pot = annoStart; pot < annoEnd; pot++) {
-                sTokens.addAll(tokenByPointInTime.get(pot));
-              }
-
-              List<SToken> tokenOfSpan = new ArrayList<>();
-
-              if (sTokens == null) {
-                SpreadsheetImporter.logger
-                    .error("Segmentation error: The segmentation of the tier \""
-                        + headerRow.getCell(annoTier).toString() + "\" in the document: \""
-                        + getResourceURI().lastSegment() + "\" in line: " + currAnno
-                        + " does not match to its primary text: \""
-                        + headerRow.getCell(annoPrimRelations.get(annoTier)).toString() + "\".");
-              } else {
-                for (SToken tok : sTokens) {
-                  STextualDS textualDS = getTextualDSForNode(tok, getDocument().getDocumentGraph());
-                  if (textualDS.getName()
-                      .equals(headerRow.getCell(annoPrimRelations.get(annoTier)).toString())) {
-                    tokenOfSpan.add(tok);
-                  }
-                }
-              }
-
-              annoSpan = getDocument().getDocumentGraph().createSpan(tokenOfSpan);
-
-              if (annoSpan != null && annoName != null && !annoName.isEmpty()) {
-                // remove primary text info of annotation if given
-                if (annoName.matches(".+\\[.+\\]")) {
-                  annoName = annoName.split("\\[")[0];
-                }
-                if (getProps().getParseNamespace()) {
-                  Pair<String, String> qname = SaltUtil.splitQName(annoName);
-                  annoSpan.createAnnotation(qname.getKey(), qname.getValue(), annoText);
-                } else {
-                  annoSpan.createAnnotation(null, annoName, annoText);
-                }
-                annoSpan.setName(annoName);
-              }
-            }
-
-            if (getProps().getLayer() != null && annoSpan != null) {
-
-              if (layerTierCouples.size() > 0) {
-                if (layerTierCouples.get(annoName) != null) {
-                  SLayer sLayer = layerTierCouples.get(annoName);
-                  getDocument().getDocumentGraph().addLayer(sLayer);
-                  sLayer.addNode(annoSpan);
-                }
-              }
-            }
-          }
-          currAnno++;
-        } // end for each row of annotation
-
-        progressProcessedNumberOfColumns++;
-        if (progressProcessedNumberOfColumns < progressTotalNumberOfColumns) {
-          setProgress(
-              (double) progressProcessedNumberOfColumns / (double) progressTotalNumberOfColumns);
-        } else {
-          setProgress(1.0);
-        }
-      } // end for each annotation layer
-    } else {
-      SpreadsheetImporter.logger.warn("No annotations except for primary texts found in document \""
-          + getResourceURI().lastSegment() + "\".");
+  private boolean readCorpusSheet(SpreadsheetReader workbook, SheetRowHandler handler)
+      throws IOException {
+    String sheetName = getSheetName();
+    if (sheetName != null) {
+      return workbook.readSheet(sheetName, handler);
+    }
+    // default ("Tabelle1"/ first sheet)
+    if (getProps().getCorpusSheet().equals("Tabelle1")) {
+      return workbook.readSheet(0, handler);
     }
+    // get corpus sheet by name
+    return workbook.readSheet(getProps().getCorpusSheet(), handler);
   }
 
   /**
-   * Set the primary text of each document
-   * 
-   * @param column
-   * @param primText
-   * @param corpusSheet
-   * @param primTextPos
-   * @param annoPrimRelations
-   * @param mergedCells
-   * @param layerTierCouples
-   * @return
+   * Visits each row of the corpus sheet once, while the sheet is read. The first row holds the name
+   * of each tier, its cells are passed to the builders of the tiers in the following rows. The
+   * merged regions are collected, since they may follow the rows they cover.
    */
-  private int setPrimText(Sheet corpusSheet, List<Integer> primTextPos,
-      HashMap<Integer, Integer> annoPrimRelations, Row headerRow,
-      Table<Integer, Integer, CellRangeAddress> mergedCells, Map<String, SLayer> layerTierCouples) {
-    // initialize with number of token we have to create
-    int progressTotalNumberOfColumns = primTextPos.size();
-    // add each annotation to this number
-
-    int progressProcessedNumberOfColumns = 0;
-
-    // use formater to ensure that e.g. integers will not be converted into
-    // decimals
-    DataFormatter formatter = new DataFormatter();
-    // save all tokens of the current primary text
-    List<SToken> currentTokList = new ArrayList<>();
-    // save all tokens of the current primary text
-    for (int primText : primTextPos) {
-
-      // initialize primaryText
-      STextualDS primaryText = SaltFactory.createSTextualDS();
-      StringBuilder currentText = new StringBuilder();
-
-      if (headerRow.getCell(primText) != null) {
-        primaryText.setName(headerRow.getCell(primText).toString());
+  private class CorpusSheetRows implements SheetRowHandler {
+    private TierSchema tierSchema = null;
+    private final List<PrimaryTextBuilder> primTextBuilders = new ArrayList<>();
+    private final List<AnnotationTierBuilder> annoBuilders = new ArrayList<>();
+    private final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+    private int lastRowNum = 0;
+    private int physicalNumberOfRows = 0;
+    private int visitedRows = 0;
+    private int visitedCells = 0;
+
+    @Override
+    public void row(int rowNum, String[] values) {
+      lastRowNum = rowNum;
+      physicalNumberOfRows++;
+      if (rowNum == 0) {
+        buildTierSchema(values);
+        return;
       }
-      getDocument().getDocumentGraph().addNode(primaryText);
-
-      int offset = currentText.length();
-
-      SToken lastTok = null;
-
-      // start with the second row of the table, since the first row holds
-      // the name of each tier
-      int currRow = 1;
-      while (currRow < corpusSheet.getPhysicalNumberOfRows()) {
-        // iterate through all rows of the given corpus sheet
-
-        Row row = corpusSheet.getRow(currRow);
-        if (row != null) {
-          Cell primCell = row.getCell(primText);
-          SToken currTok = null;
-          int endCell = currRow;
-
-          String text = null;
-          if (primCell != null && !primCell.toString().isEmpty()) {
-            text = formatter.formatCellValue(primCell);
-
-          } else if (getProps().getIncludeEmptyPrimCells()) {
-            text = "";
-
-          }
-          if (text != null) {
-            int start = offset;
-            int end = start + text.length();
-            offset += text.length();
-            currentText.append(text);
-
-            currTok = getDocument().getDocumentGraph().createToken(primaryText, start, end);
-
-            if (primCell != null) {
-              endCell = getLastCell(primCell, mergedCells);
-            }
-          }
-
-          if (currTok != null) {
-            if (lastTok != null && getProps().getAddOrderRelation()) {
-              addOrderRelation(lastTok, currTok, headerRow.getCell(primText).toString());
-            }
-            // add timeline relation
-            addTimelineRelation(currTok, currRow, endCell, corpusSheet);
-
-            // remember all SToken
-            currentTokList.add(currTok);
-
-            // insert space between tokens
-            if (text != null && (currRow != corpusSheet.getLastRowNum())) {
-              currentText.append(" ");
-              offset++;
-            }
-          }
+      if (tierSchema == null) {
+        // the sheet has no header row
+        buildTierSchema(null);
+      }
+      for (PrimaryTextBuilder primTextBuilder : primTextBuilders) {
+        primTextBuilder.addCell(rowNum, getValue(values, primTextBuilder.getTier().getColumn()));
+      }
+      for (AnnotationTierBuilder annoBuilder : annoBuilders) {
+        annoBuilder.addCell(rowNum, stringPool.intern(getValue(values, annoBuilder.getTier().getColumn())));
+      }
+      visitedRows++;
+      visitedCells += values.length;
+    }
 
-          if (currTok != null) {
-            lastTok = currTok;
-          }
-        }
-        currRow++;
-      } // end for each token row
-      primaryText.setText(currentText.toString());
+    @Override
+    public void mergedRegion(CellRangeAddress region) {
+      mergedRegions.add(region);
+    }
 
-      progressProcessedNumberOfColumns++;
-      if (progressProcessedNumberOfColumns < progressTotalNumberOfColumns) {
-        setProgress(
-            (double) progressProcessedNumberOfColumns / (double) progressTotalNumberOfColumns);
-      } else {
-        setProgress(1.0);
+    /**
+     * the role of each column (first row holds the names of the tiers)
+     * 
+     * @param header
+     */
+    private void buildTierSchema(String[] header) {
+      long start = metrics.start();
+      tierSchema = TierSchema.build(header, getProps().getTierMapping(),
+          getProps().getParseNamespace(), getResourceURI().lastSegment(), stringPool);
+      for (TierSchema.Tier primTextTier : tierSchema.getPrimaryTextTiers()) {
+        primTextBuilders.add(new PrimaryTextBuilder(primTextTier, getProps().getIncludeEmptyPrimCells()));
       }
+      for (TierSchema.Tier annoTier : tierSchema.getAnnotationTiers()) {
+        annoBuilders.add(new AnnotationTierBuilder(annoTier));
+      }
+      metrics.stop(ImportMetrics.Phase.HEADER, start);
+    }
 
-      if (getProps().getLayer() != null) {
-        if (currentTokList != null && layerTierCouples.size() > 0) {
-          if (layerTierCouples.get(primaryText.getName()) != null) {
-            SLayer sLayer = layerTierCouples.get(primaryText.getName());
-            getDocument().getDocumentGraph().addLayer(sLayer);
-            for (SToken t : currentTokList) {
-              sLayer.addNode(t);
-            }
-          }
+    /**
+     * Completes the rows once the sheet is read. As the mapping always did, only the rows before the
+     * number of defined rows are mapped, which matters if the sheet has undefined rows in between.
+     */
+    private void finish() {
+      if (tierSchema == null) {
+        buildTierSchema(null);
+      }
+      if (physicalNumberOfRows <= lastRowNum) {
+        for (PrimaryTextBuilder primTextBuilder : primTextBuilders) {
+          primTextBuilder.removeRowsFrom(physicalNumberOfRows);
+        }
+        for (AnnotationTierBuilder annoBuilder : annoBuilders) {
+          annoBuilder.removeRowsFrom(physicalNumberOfRows);
         }
       }
-    } // end for each primTextPos
-    return progressProcessedNumberOfColumns;
-  }
-
-  private void addTimelineRelation(SToken tok, int currRow, int endTime, Sheet corpusSheet) {
-    STimelineRelation sTimeRel = SaltFactory.createSTimelineRelation();
-    sTimeRel.setSource(tok);
-    sTimeRel.setTarget(getDocument().getDocumentGraph().getTimeline());
-    sTimeRel.setStart(currRow - 1);
-    sTimeRel.setEnd(endTime);
-    getDocument().getDocumentGraph().addRelation(sTimeRel);
-  }
+      metrics.count(ImportMetrics.Counter.ROWS, visitedRows);
+      metrics.count(ImportMetrics.Counter.CELLS, visitedCells);
+    }
 
-  private void addOrderRelation(SToken lastTok, SToken currTok, String name) {
-    SOrderRelation primTextOrder = SaltFactory.createSOrderRelation();
-    primTextOrder.setType(name);
+    private TierSchema getTierSchema() {
+      return tierSchema;
+    }
 
-    primTextOrder.setSource(lastTok);
-    primTextOrder.setTarget(currTok);
-    getDocument().getDocumentGraph().addRelation(primTextOrder);
-  }
+    private List<PrimaryTextBuilder> getPrimTextBuilders() {
+      return primTextBuilders;
+    }
 
-  /**
-   * get all annotations and their belonging primary text and save them into a hashmap
-   * 
-   * @param primTier
-   * @param annoPrimRelations
-   * @param currColumn
-   */
-  private void setAnnotationPrimCouple(String primTier, HashMap<Integer, Integer> annoPrimRelations,
-      int currColumn, Row headerRow) {
-
-    if (getColumn(primTier, headerRow) != null) {
-      int primData = getColumn(primTier, headerRow);
-      if (annoPrimRelations.get(currColumn) != null) {
-        SpreadsheetImporter.logger
-            .warn("The annotation \"" + headerRow.getCell(currColumn).toString().split("\\[")[0]
-                + "\" was allready referenced to the primary text in column \""
-                + annoPrimRelations.get(currColumn)
-                + "\". This reference was overwritten. The new primary text for \""
-                + headerRow.getCell(currColumn).toString().split("\\[")[0] + "\" is \""
-                + headerRow.getCell(primData) + "\".");
-        annoPrimRelations.remove(currColumn);
-        annoPrimRelations.put(currColumn, primData);
-      } else {
-        annoPrimRelations.put(currColumn, primData);
-      }
-    } else {
-      SpreadsheetImporter.logger.warn("The primary text \"" + primTier
-          + "\" does not exist in the document \"" + getResourceURI().lastSegment() + "\".");
+    private List<AnnotationTierBuilder> getAnnoBuilders() {
+      return annoBuilders;
     }
-  }
 
-  /**
-   * Return the last cell of merged cells
-   * 
-   * @param primCell , current cell of the primary text
-   * @return
-   */
-  private int getLastCell(Cell cell, Table<Integer, Integer, CellRangeAddress> mergedCellsIdx) {
-    int lastCell = cell.getRowIndex();
-    CellRangeAddress mergedCell = null;
-    if (mergedCellsIdx != null) {
-      mergedCell = mergedCellsIdx.get(cell.getRowIndex(), cell.getColumnIndex());
+    private List<CellRangeAddress> getMergedRegions() {
+      return mergedRegions;
     }
-    if (mergedCell != null) {
-      lastCell = mergedCell.getLastRow();
+
+    /**
+     * @return (0-based) index of the last row of the sheet
+     */
+    private int getLastRowNum() {
+      return lastRowNum;
     }
-    return lastCell;
+  }
+
+  private static String getValue(String[] row, int column) {
+    return column < row.length ? row[column] : null;
   }
 
   /**
-   * get the primary text of the annotation tier
+   * Add annotations to the salt graph
    * 
-   * @param currentTier
+   * @param annoBuilders
+   * @param layers
+   * @param tokenIndexes the tokens of each primary text column by their points of time
+   * @param mergedCells the merged regions of the corpus sheet
    */
-  private String getPrimOfAnnoPrimRel(String currentTier) {
-    String annoPrimNew = null;
-
-    // check if both properties where used
-    if (getProps().getAnnoPrimRel() != null && getProps().getShortAnnoPrimRel() != null) {
-      SpreadsheetImporter.logger.error(
-          "Wrong property handling. Please use only one property to specify which annotation refers to which primary text tier (exclusive use of either 'annoPrimRel' or 'shortAnnoPrimRel').");
-    } else {
-      String annoPrimRel = getProps().getAnnoPrimRel();
-      if (annoPrimRel != null) {
-        if (annoPrimRel.matches("(?s).+],.+") || annoPrimRel.matches("(?s).+]")) {
-          List<String> annoPrimRelation = Arrays.asList(annoPrimRel.split("\\s*,\\s*"));
-          for (String annoPrim : annoPrimRelation) {
-            String[] splitted = annoPrim.split("=", 2);
-            if (splitted.length > 1) {
-              String annoName = splitted[0];
-              String annoPrimCouple = splitted[1];
-
-              if (annoName.equals(currentTier)) {
-                annoPrimNew = annoPrimCouple.split("\\[")[1].replace("]", "");
-              }
-            } else {
-              SpreadsheetImporter.logger.error(
-                  "Can not match the annotations to their primary text, because of syntax errors. "
-                      + "Please check the syntax of your property settings. "
-                      + "The problematic entry is:\n" + annoPrim);
-            }
-          }
-        } else {
-          SpreadsheetImporter.logger.error(
-              "Can not match the annotations to their primary text, because of syntax errors. "
-                  + "Please check the syntax of your property settings.");
+  private void setAnnotations(List<AnnotationTierBuilder> annoBuilders, Map<String, SLayer> layers,
+      Map<Integer, TimelineTokenIndex> tokenIndexes, MergedRegionIndex mergedCells) {
+    if (!annoBuilders.isEmpty()) {
+      long start = metrics.start();
+      // the tiers are independent of each other, only the graph must be changed by a single thread
+      if (getProps().getParallelAnnotations() && annoBuilders.size() > 1) {
+        annoBuilders.parallelStream().forEach(annoBuilder -> annoBuilder
+            .resolveTokens(tokenIndexes.get(annoBuilder.getTier().getPrimaryTextColumn()), mergedCells));
+      } else {
+        for (AnnotationTierBuilder annoBuilder : annoBuilders) {
+          annoBuilder
+              .resolveTokens(tokenIndexes.get(annoBuilder.getTier().getPrimaryTextColumn()), mergedCells);
         }
       }
-      String shortAnnoPrimRel = getProps().getShortAnnoPrimRel();
-      if (shortAnnoPrimRel != null) {
-        if (shortAnnoPrimRel.matches("(?s).+},.+") || shortAnnoPrimRel.matches("(?s).+}")) {
-          List<String> shortAnnoPrimRelation = Arrays.asList(shortAnnoPrimRel.split("\\s*},\\s*"));
-          for (String annoPrim : shortAnnoPrimRelation) {
-            List<String> primAnnoPair = Arrays.asList(annoPrim.split("="));
-            if (primAnnoPair.size() == 2) {
-              String[] annos = primAnnoPair.get(1).split("\\s*,\\s*");
-              for (String anno : annos) {
-                if (anno.replace("}", "").replace("{", "").equals(currentTier)) {
-                  annoPrimNew = primAnnoPair.get(0);
-                }
-              }
-            } else {
-              SpreadsheetImporter.logger.error(
-                  "Can not match the annotations to their primary text because the property settings do not match the needed syntax (missing \"=\"). Please check the syntax of your property settings.");
-            }
+      metrics.stop(ImportMetrics.Phase.ANNOTATIONS, start);
+      for (AnnotationTierBuilder annoBuilder : annoBuilders) {
+        start = metrics.start();
+        TierSchema.Tier annoTier = annoBuilder.getTier();
+        List<SSpan> annoSpans = annoBuilder.commit(getDocument().getDocumentGraph());
+        metrics.count(ImportMetrics.Counter.SPANS, annoSpans.size());
+        metrics.stop(ImportMetrics.Phase.ANNOTATIONS, start);
+
+        start = metrics.start();
+        if (annoTier.getLayer() != null && !annoSpans.isEmpty()) {
+          SLayer sLayer = getLayer(annoTier.getLayer(), layers);
+          for (SSpan annoSpan : annoSpans) {
+            sLayer.addNode(annoSpan);
           }
-        } else {
-          SpreadsheetImporter.logger.error(
-              "Can not match the annotations to their primary text, because of syntax errors. Please check the syntax of your property settings.");
         }
-      }
+        metrics.stop(ImportMetrics.Phase.LAYERS, start);
+      } // end for each annotation layer
+    } else {
+      SpreadsheetImporter.logger.warn("No annotations except for primary texts found in document \""
+          + getResourceURI().lastSegment() + "\".");
     }
-    return annoPrimNew;
   }
 
   /**
-   * method to find a certain column, given by the row and the string of a cell
+   * Set the primary text of each document
    * 
-   * @param tierName
-   * @param row
-   * @return the column of a row, that includes the given string
+   * @param primTextBuilders
+   * @param layers
+   * @param tokenIndexes receives the tokens of each primary text column by their points of time
+   * @param mergedCells the merged regions of the corpus sheet
+   * @param lastRow (0-based) index of the last row of the corpus sheet
    */
-  private Integer getColumn(String tierName, Row row) {
-    Integer searchedColumn = null;
-    for (int currCol = 0; currCol < row.getLastCellNum(); currCol++) {
-
-      if (row.getCell(currCol) != null && row.getCell(currCol).toString().equals(tierName)) {
-        searchedColumn = currCol;
+  private void setPrimText(List<PrimaryTextBuilder> primTextBuilders, Map<String, SLayer> layers,
+      Map<Integer, TimelineTokenIndex> tokenIndexes, MergedRegionIndex mergedCells, int lastRow) {
+    // save all tokens of the current primary text
+    List<SToken> currentTokList = new ArrayList<>();
+    for (PrimaryTextBuilder primTextBuilder : primTextBuilders) {
+      long start = metrics.start();
+      TierSchema.Tier primTextTier = primTextBuilder.getTier();
+      primTextBuilder.commit(getDocument().getDocumentGraph(), getProps().getAddOrderRelation(),
+          mergedCells, lastRow);
+      tokenIndexes.put(primTextTier.getColumn(), primTextBuilder.getTokenIndex());
+      metrics.count(ImportMetrics.Counter.TOKENS, primTextBuilder.getTokens().size());
+      metrics.stop(ImportMetrics.Phase.PRIMARY_TEXT, start);
+
+      start = metrics.start();
+      // remember all SToken
+      currentTokList.addAll(primTextBuilder.getTokens());
+      if (primTextTier.getLayer() != null) {
+        SLayer sLayer = getLayer(primTextTier.getLayer(), layers);
+        for (SToken t : currentTokList) {
+          sLayer.addNode(t);
+        }
       }
-    }
-    return searchedColumn;
+      metrics.stop(ImportMetrics.Phase.LAYERS, start);
+    } // end for each primary text
   }
 
   /**
@@ -706,46 +597,32 @@ public class Spreadsheet2SaltMapper extends PepperMapperImpl implements PepperMa
     return null;
   }
 
-  private Map<String, SLayer> getLayerTierCouples() {
-    // get all sLayer and the associated annotations
-    String tierLayerCouple = getProps().getLayer();
-    // System.out.println(annoLayerCouple);
-    Map<String, SLayer> annoLayerCoupleMap = new HashMap<>();
-    if (tierLayerCouple != null && !tierLayerCouple.isEmpty()) {
-      if (tierLayerCouple.matches("(?s).+},.+") || tierLayerCouple.matches("(?s).+}")) {
-        List<String> annoLayerCoupleList = Arrays.asList(tierLayerCouple.split("\\s*},\\s*"));
-        for (String annoLayer : annoLayerCoupleList) {
-          List<String> annoLayerPair = Arrays.asList(annoLayer.split("="));
-          if ((annoLayerPair.size() == 2)) {
-            SLayer sLayer = SaltFactory.createSLayer();
-            sLayer.setName(annoLayerPair.get(0));
-            String[] assoAnno = annoLayerPair.get(1).split("\\s*,\\s*");
-            for (String tier : assoAnno) {
-              tier = tier.replace("{", "");
-              tier = tier.replace("}", "");
-              annoLayerCoupleMap.put(tier, sLayer);
-            }
-          } else {
-            SpreadsheetImporter.logger.error(
-                "Can not create SLayer because the property settings do not match the needed syntax (missing \"=\"). Please check the syntax of your property settings.");
-
-          }
-        }
-      } else {
-        SpreadsheetImporter.logger.error(
-            "Can not create SLayer because the property settings do not match the needed syntax. Please check the syntax of your property settings.");
-      }
+  /**
+   * get the layer with the given name, the layer is created and added to the document graph on its
+   * first use
+   * 
+   * @param layerName
+   * @param layers the layers of the current document by their names
+   * @return the layer
+   */
+  private SLayer getLayer(String layerName, Map<String, SLayer> layers) {
+    SLayer sLayer = layers.get(layerName);
+    if (sLayer == null) {
+      sLayer = SaltFactory.createSLayer();
+      sLayer.setName(layerName);
+      getDocument().getDocumentGraph().addLayer(sLayer);
+      layers.put(layerName, sLayer);
     }
-    return annoLayerCoupleMap;
+    return sLayer;
   }
 
-  private void setDocMetaData(Workbook workbook) {
-    Sheet metaSheet = null;
+  private void setDocMetaData(SpreadsheetReader workbook) throws IOException {
+    SheetTable metaSheet = null;
 
     // default ("Tabelle2"/ second sheet)
     if (getProps().getMetaSheet().equals("Tabelle2")) {
-      if (workbook.getNumberOfSheets() > 1) {
-        metaSheet = workbook.getSheetAt(1);
+      if (workbook.getSheetNames().size() > 1) {
+        metaSheet = workbook.getSheet(1);
       }
     } else {
       // get corpus sheet by name
@@ -753,35 +630,31 @@ public class Spreadsheet2SaltMapper extends PepperMapperImpl implements PepperMa
     }
 
     if (metaSheet != null) {
-      DataFormatter formatter = new DataFormatter();
       // start with the second row of the table, since the first row holds
       // the name of each tier
       int currRow = 1;
       while (currRow < metaSheet.getPhysicalNumberOfRows()) {
         // iterate through all rows of the given meta informations
 
-        Row row = metaSheet.getRow(currRow);
-        Cell metaKey = row.getCell(0);
-        Cell metaValue = row.getCell(1);
+        String metaKey = metaSheet.getCellValue(currRow, 0);
+        String metaValue = metaSheet.getCellValue(currRow, 1);
 
-        if (metaKey != null && !metaKey.toString().isEmpty()) {
-          if (metaValue != null && !metaValue.toString().isEmpty()) {
-            if (getDocument().getMetaAnnotation(metaKey.toString()) == null) {
-              getDocument().createMetaAnnotation(null, formatter.formatCellValue(metaKey),
-                  formatter.formatCellValue(metaValue));
+        if (metaKey != null && !metaKey.isEmpty()) {
+          if (metaValue != null && !metaValue.isEmpty()) {
+            if (getDocument().getMetaAnnotation(metaKey) == null) {
+              getDocument().createMetaAnnotation(null, stringPool.intern(metaKey), stringPool.intern(metaValue));
             } else {
-              SpreadsheetImporter.logger
-                  .warn("A meta information with the name \"" + formatter.formatCellValue(metaKey)
-                      + "\" allready exists and will not be replaced.");
+              SpreadsheetImporter.logger.warn("A meta information with the name \"" + metaKey
+                  + "\" allready exists and will not be replaced.");
             }
           } else {
             SpreadsheetImporter.logger
-                .warn("No value for the meta data: \"" + metaKey.toString() + "\" found.");
+                .warn("No value for the meta data: \"" + metaKey + "\" found.");
           }
         } else {
-          if (metaValue != null && !metaValue.toString().isEmpty()) {
-            SpreadsheetImporter.logger.warn(
-                "No meta annotation name for the value \"" + metaValue.toString() + "\" found.");
+          if (metaValue != null && !metaValue.isEmpty()) {
+            SpreadsheetImporter.logger
+                .warn("No meta annotation name for the value \"" + metaValue + "\" found.");
           }
         }
         currRow++;
@@ -21,6 +21,7 @@ import org.corpus_tools.pepper.common.PepperConfiguration;
 import org.corpus_tools.pepper.impl.PepperExporterImpl;
 import org.corpus_tools.pepper.modules.PepperExporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleNotReadyException;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
@@ -36,6 +37,8 @@ public class SpreadsheetExporter extends PepperExporterImpl implements PepperExp
 		setSupplierContact(URI.createFileURI(PepperConfiguration.EMAIL));
 		setName(NAME);
 		addSupportedFormat("xlsx", "2007+", null);
+		addSupportedFormat("csv", "1.0", null);
+		addSupportedFormat("tsv", "1.0", null);
 		setIsMultithreaded(true);
 		setProperties(new SpreadsheetExporterProperties());
 		setDesc("This exporter transforms a Salt model into a spreadsheet.");
@@ -43,6 +46,13 @@ public class SpreadsheetExporter extends PepperExporterImpl implements PepperExp
 		setExportMode(EXPORT_MODE.DOCUMENTS_IN_FILES);
 	}
 	
+	@Override
+	public boolean isReadyToStart() throws PepperModuleNotReadyException {
+		// the files of the documents are named before the mappers are created
+		setDocumentEnding(((SpreadsheetExporterProperties) getProperties()).getFormat().name());
+		return super.isReadyToStart();
+	}
+	
 	@Override
 	public PepperMapper createPepperMapper(Identifier identifier) {
 		Salt2SpreadsheetMapper mapper = new Salt2SpreadsheetMapper();
@@ -35,7 +35,7 @@ public class SpreadsheetExporterProperties extends PepperModuleProperties {
 	public static final String PROP_COL_ORDER = "column.order";
 	/** Remove trailing and leading whitespaces. */
 	public static final String PROP_TRIM_VALUES = "trim.values";
-	/** Annotation names (comma-separated), that are ignored when mapping span annotations. The provided names will still be imported as tokens, given there are order relations. */
+	/** Annotation names (comma-separated), that are ignored when mapping token and span annotations. The provided names will still be imported as tokens, given there are order relations. */
 	public static final String PROP_IGNORE_ANNO_NAMES = "ignore.anno.names";
 	/** TODO This property defines the preferred vertical alignment. */
 	public static final String PROP_VERTICAL_ALIGNMENT = "text.align.vertical";
@@ -43,6 +43,18 @@ public class SpreadsheetExporterProperties extends PepperModuleProperties {
 	public static final String PROP_HORIZONTAL_ALIGNMENT = "text.align.horizontal";
 	/** Creates a column containing the document name if a String header value is provided. **/
 	public static final String PROP_DOC_COL_TITLE = "document.column.title";
+	/** Writes the rows through a streaming workbook, which keeps only a window of rows in memory. */
+	public static final String PROP_STREAMING = "streaming";
+	/** Number of rows a streaming workbook keeps in memory before they are flushed to a temporary file. */
+	public static final String PROP_STREAMING_WINDOW = "streaming.window";
+	/** Format of the exported files, xlsx (default), csv or tsv. */
+	public static final String PROP_FORMAT = "format";
+	/** Defines how the cells below the first cell of a span are written to csv and tsv files, which have no merged cells. */
+	public static final String PROP_MERGED_CELLS = "merged.cells";
+	/** Value of the cells continuing the cell above, if merged cells are written as continued cells. */
+	public static final String PROP_CONTINUATION_MARKER = "continuation.marker";
+	
+	private static final String DEFAULT_CONTINUATION_MARKER = "^";
 	
 	public SpreadsheetExporterProperties() {
 		addProperty(PepperModuleProperty.create()
@@ -66,7 +78,7 @@ public class SpreadsheetExporterProperties extends PepperModuleProperties {
 		addProperty(PepperModuleProperty.create()
 				.withName(PROP_IGNORE_ANNO_NAMES)
 				.withType(String.class)
-				.withDescription("Annotation names (comma-separated), that are ignored when mapping span annotations. The provided names will still be imported as tokens, given there are order relations.")
+				.withDescription("Annotation names (comma-separated), that are ignored when mapping token and span annotations. The provided names will still be imported as tokens, given there are order relations.")
 				.isRequired(false)
 				.build());
 		addProperty(PepperModuleProperty.create()
@@ -86,6 +98,36 @@ public class SpreadsheetExporterProperties extends PepperModuleProperties {
 				.withType(String.class)
 				.withDescription("Creates a column containing the document name if a String header value is provided.")
 				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_STREAMING)
+				.withType(Boolean.class)
+				.withDescription("Writes the rows through a streaming workbook, which keeps only a window of rows in memory. The layout of the sheet is computed first and the rows are written in ascending order.")
+				.withDefaultValue(false)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_STREAMING_WINDOW)
+				.withType(Integer.class)
+				.withDescription("Number of rows a streaming workbook keeps in memory before they are flushed to a temporary file.")
+				.withDefaultValue(100)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_FORMAT)
+				.withType(FormatValue.class)
+				.withDescription("Format of the exported files, xlsx (default), csv or tsv. Csv and tsv files are written row by row from the same layout as workbooks.")
+				.withDefaultValue(FormatValue.xlsx)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_MERGED_CELLS)
+				.withType(MergedCellsValue.class)
+				.withDescription("Defines how the cells below the first cell of a span are written to csv and tsv files, which have no merged cells: blank (default) leaves them empty, repeat repeats the value of the span and marker writes the continuation marker, which the importer reads as merged cells.")
+				.withDefaultValue(MergedCellsValue.blank)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_CONTINUATION_MARKER)
+				.withType(String.class)
+				.withDescription("Value of the cells continuing the cell above, if merged cells are written as continued cells. Cells of csv files holding this value are quoted, so that they are not read as continued cells.")
+				.withDefaultValue(DEFAULT_CONTINUATION_MARKER)
+				.build());
 	}
 	
 	/**
@@ -139,4 +181,37 @@ public class SpreadsheetExporterProperties extends PepperModuleProperties {
 		Object value = getProperty(PROP_DOC_COL_TITLE).getValue();
 		return value == null? null : (String) value;
 	}
+	
+	public boolean streaming() {
+		return (Boolean) getProperty(PROP_STREAMING).getValue();
+	}
+	
+	public int getStreamingWindow() {
+		return (Integer) getProperty(PROP_STREAMING_WINDOW).getValue();
+	}
+	
+	public FormatValue getFormat() {
+		return (FormatValue) getProperty(PROP_FORMAT).getValue();
+	}
+	
+	public static enum FormatValue {
+		xlsx, csv, tsv;
+	}
+	
+	public MergedCellsValue getMergedCells() {
+		return (MergedCellsValue) getProperty(PROP_MERGED_CELLS).getValue();
+	}
+	
+	public static enum MergedCellsValue {
+		blank, repeat, marker;
+	}
+	
+	/**
+	 * @return the configured continuation marker, the default marker if none or an empty one is
+	 *         configured, since empty cells cannot continue a cell
+	 */
+	public String getContinuationMarker() {
+		Object value = getProperty(PROP_CONTINUATION_MARKER).getValue();
+		return value == null || ((String) value).isEmpty() ? DEFAULT_CONTINUATION_MARKER : (String) value;
+	}
 }
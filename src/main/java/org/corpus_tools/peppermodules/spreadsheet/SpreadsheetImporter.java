@@ -17,14 +17,33 @@
  */
 package org.corpus_tools.peppermodules.spreadsheet;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.corpus_tools.pepper.common.PepperConfiguration;
 import org.corpus_tools.pepper.impl.PepperImporterImpl;
 import org.corpus_tools.pepper.modules.PepperImporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.pepper.modules.PepperModule;
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleNotReadyException;
+import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
@@ -45,6 +64,18 @@ public class SpreadsheetImporter extends PepperImporterImpl implements PepperImp
 	// this is a logger, for recording messages during program process, like debug messages
 	static final Logger logger= LoggerFactory.getLogger(MODULE_NAME);
 	
+	/** metrics summed up over all documents of the import */
+	private ImportMetrics importMetrics = new ImportMetrics(MODULE_NAME, false);
+	
+	/** cache of the imported documents, null if the property 'cacheDir' is not set */
+	private ImportCache importCache = null;
+	
+	/** pool of the tier names and annotation values shared by all documents of the import */
+	private StringPool stringPool = StringPool.NONE;
+	
+	/** workbooks shared by the documents of their sheets, if the property 'sheetsAsDocuments' is set */
+	private SharedSpreadsheets sharedSpreadsheets = new SharedSpreadsheets();
+	
 	/**
 	 * <strong>OVERRIDE THIS METHOD FOR CUSTOMIZATION</strong>
 	 * <br/>
@@ -58,8 +89,12 @@ public class SpreadsheetImporter extends PepperImporterImpl implements PepperImp
 		setName(MODULE_NAME);
 		addSupportedFormat("xls", "97-2008", null);
 		addSupportedFormat("xlsx", "2007+", null);
+		addSupportedFormat(DelimitedTextReader.CSV_ENDING, "1.0", null);
+		addSupportedFormat(DelimitedTextReader.TSV_ENDING, "1.0", null);
 		getDocumentEndings().add("xlsx");
 		getDocumentEndings().add("xls");
+		getDocumentEndings().add(DelimitedTextReader.CSV_ENDING);
+		getDocumentEndings().add(DelimitedTextReader.TSV_ENDING);
 		setIsMultithreaded(true);
 		this.setProperties(new SpreadsheetImporterProperties());
 	}
@@ -89,9 +124,214 @@ public class SpreadsheetImporter extends PepperImporterImpl implements PepperImp
 			URI resource = getIdentifier2ResourceTable().get(identifier);
 			mapper.setResourceURI(resource);
 		}
+		mapper.setImportMetrics(importMetrics);
+		mapper.setImportCache(importCache);
+		mapper.setStringPool(stringPool);
+		mapper.setSharedSpreadsheets(sharedSpreadsheets);
 		return mapper;
 	}
 	
+	/**
+	 * Imports the corpus structure by the file structure. If the property 'discoveryThreads' is set,
+	 * the directories are walked in parallel by a {@link CorpusDiscovery}, otherwise the files are
+	 * found by their endings. Lock files of office programs are never imported.
+	 * <br/>
+	 * If the property 'sheetsAsDocuments' is set, the document of each xls or xlsx file is replaced
+	 * by a corpus of the same name, which holds one document for each matching sheet. The resource of
+	 * such a document is the file with the sheet name as fragment, the mappers of the sheets share one
+	 * opened workbook.
+	 */
+	@Override
+	public void importCorpusStructure(SCorpusGraph corpusGraph) throws PepperModuleException {
+		SpreadsheetImporterProperties props = (SpreadsheetImporterProperties) getProperties();
+		Pattern sheetPattern = null;
+		if (props.getSheetsAsDocuments() != null && !props.getSheetsAsDocuments().trim().isEmpty()) {
+			try {
+				sheetPattern = Pattern.compile(props.getSheetsAsDocuments().trim());
+			} catch (PatternSyntaxException e) {
+				throw new PepperModuleException("The value of the property '"
+						+ SpreadsheetImporterProperties.PROP_SHEETS_AS_DOCUMENTS + "' is no regular expression.", e);
+			}
+		}
+		sharedSpreadsheets.closeAll();
+		if (props.getDiscoveryThreads() > 0) {
+			discoverCorpusStructure(corpusGraph, sheetPattern, props);
+			return;
+		}
+		super.importCorpusStructure(corpusGraph);
+		for (SDocument document : new ArrayList<>(corpusGraph.getDocuments())) {
+			URI resource = getIdentifier2ResourceTable().get(document.getIdentifier());
+			if (resource == null || !resource.isFile()) {
+				continue;
+			}
+			File file = new File(resource.toFileString());
+			if (file.getName().startsWith(CorpusDiscovery.LOCK_FILE_PREFIX)) {
+				getIdentifier2ResourceTable().remove(document.getIdentifier());
+				corpusGraph.removeNode(document);
+				continue;
+			}
+			List<String> sheetNames = sheetPattern == null ? null : getDocumentSheetNames(file, sheetPattern, props);
+			if (sheetNames != null) {
+				SCorpus parent = corpusGraph.getCorpus(document);
+				getIdentifier2ResourceTable().remove(document.getIdentifier());
+				corpusGraph.removeNode(document);
+				addDocuments(corpusGraph, parent, document.getName(), resource, sheetNames);
+			}
+		}
+	}
+	
+	/**
+	 * Builds the corpus structure from the documents found by a parallel {@link CorpusDiscovery}. The
+	 * sheets of each workbook are listed right after it was found, while the discovery continues with
+	 * other directories. The documents are added to the corpus graph ordered by their paths after the
+	 * discovery, so that the order does not depend on the threads.
+	 * 
+	 * @param corpusGraph
+	 * @param sheetPattern pattern of the sheets which become documents, null for one document per file
+	 * @param props
+	 */
+	private void discoverCorpusStructure(SCorpusGraph corpusGraph, Pattern sheetPattern,
+			SpreadsheetImporterProperties props) {
+		setCorpusGraph(corpusGraph);
+		Path root = Paths.get(getCorpusDesc().getCorpusPath().toFileString()).toAbsolutePath().normalize();
+		Path rootDirectory = Files.isDirectory(root) ? root : root.getParent();
+		// the sheets which become documents by the files found, null for one document per file
+		Map<Path, List<String>> documents = Collections.synchronizedMap(new TreeMap<>());
+		long start = System.currentTimeMillis();
+		int found;
+		try {
+			found = new CorpusDiscovery(props.getDiscoveryThreads()).discover(root, file -> {
+				List<String> sheetNames = sheetPattern == null ? null
+						: getDocumentSheetNames(file.toFile(), sheetPattern, props);
+				documents.put(file, sheetNames);
+			});
+		} catch (IOException e) {
+			throw new PepperModuleException("Could not discover the documents of '" + root + "'.", e);
+		}
+		// the corpus of each directory holding documents, created when its first document is added
+		Map<Path, SCorpus> corpora = new HashMap<>();
+		for (Map.Entry<Path, List<String>> document : documents.entrySet()) {
+			Path file = document.getKey();
+			SCorpus corpus = getDirectoryCorpus(corpusGraph, corpora, rootDirectory, file.getParent());
+			addDocuments(corpusGraph, corpus, FilenameUtils.getBaseName(file.getFileName().toString()),
+					URI.createFileURI(file.toString()), document.getValue());
+		}
+		logger.info("Discovered {} documents below '{}' in {} ms.", found, root, System.currentTimeMillis() - start);
+	}
+	
+	/**
+	 * @param corpusGraph
+	 * @param corpora the corpora created so far by their directories
+	 * @param rootDirectory directory of the root corpus
+	 * @param directory
+	 * @return the corpus of the directory, it is created with the corpora of its parent directories if
+	 *         necessary
+	 */
+	private SCorpus getDirectoryCorpus(SCorpusGraph corpusGraph, Map<Path, SCorpus> corpora,
+			Path rootDirectory, Path directory) {
+		SCorpus corpus = corpora.get(directory);
+		if (corpus == null) {
+			corpus = SaltFactory.createSCorpus();
+			corpus.setName(directory.getFileName() == null ? directory.toString() : directory.getFileName().toString());
+			if (directory.equals(rootDirectory) || directory.getParent() == null) {
+				corpusGraph.addNode(corpus);
+			} else {
+				corpusGraph.addSubCorpus(getDirectoryCorpus(corpusGraph, corpora, rootDirectory, directory.getParent()),
+						corpus);
+			}
+			getIdentifier2ResourceTable().put(corpus.getIdentifier(), URI.createFileURI(directory.toString()));
+			corpora.put(directory, corpus);
+		}
+		return corpus;
+	}
+	
+	/**
+	 * Adds the document of a file to its corpus, or a corpus holding a document for each of the given
+	 * sheets.
+	 * 
+	 * @param corpusGraph
+	 * @param parent the corpus of the directory of the file
+	 * @param name name of the document
+	 * @param resource the file
+	 * @param sheetNames the sheets which become documents, null for one document of the whole file
+	 */
+	private void addDocuments(SCorpusGraph corpusGraph, SCorpus parent, String name, URI resource,
+			List<String> sheetNames) {
+		if (sheetNames == null) {
+			SDocument document = SaltFactory.createSDocument();
+			document.setName(name);
+			corpusGraph.addDocument(parent, document);
+			getIdentifier2ResourceTable().put(document.getIdentifier(), resource);
+			return;
+		}
+		SCorpus workbookCorpus = SaltFactory.createSCorpus();
+		workbookCorpus.setName(name);
+		corpusGraph.addSubCorpus(parent, workbookCorpus);
+		for (String sheetName : sheetNames) {
+			SDocument sheetDocument = SaltFactory.createSDocument();
+			sheetDocument.setName(sheetName);
+			corpusGraph.addDocument(workbookCorpus, sheetDocument);
+			getIdentifier2ResourceTable().put(sheetDocument.getIdentifier(),
+					resource.trimFragment().appendFragment(URI.encodeFragment(sheetName, false)));
+		}
+		sharedSpreadsheets.register(SharedSpreadsheets.getFile(resource), sheetNames.size());
+	}
+	
+	/**
+	 * Lists the sheets of a workbook which become documents. The sheet names are read with the
+	 * streaming readers, which do not load the cells.
+	 * 
+	 * @param file
+	 * @param sheetPattern pattern of the names of the sheets
+	 * @param props
+	 * @return the names of the matching sheets except the meta sheet, null if the file is imported as
+	 *         one document, since it is no xls or xlsx file, cannot be read or has no matching sheet
+	 */
+	private static List<String> getDocumentSheetNames(File file, Pattern sheetPattern,
+			SpreadsheetImporterProperties props) {
+		if (DelimitedTextReader.isDelimitedText(file)) {
+			return null;
+		}
+		List<String> sheetNames = new ArrayList<>();
+		try {
+			FileMagic fileMagic = FileMagic.valueOf(file);
+			SpreadsheetReader reader;
+			if (fileMagic == FileMagic.OOXML) {
+				reader = new XlsxStreamingReader(file);
+			} else if (fileMagic == FileMagic.OLE2) {
+				reader = new XlsStreamingReader(file);
+			} else {
+				return null;
+			}
+			try {
+				List<String> allNames = reader.getSheetNames();
+				String metaSheet = null;
+				if (props.getMetaAnnotation()) {
+					if (props.getMetaSheet().equals("Tabelle2")) {
+						metaSheet = allNames.size() > 1 ? allNames.get(1) : null;
+					} else {
+						metaSheet = props.getMetaSheet();
+					}
+				}
+				for (String sheetName : allNames) {
+					if (!sheetName.equals(metaSheet) && sheetPattern.matcher(sheetName).matches()) {
+						sheetNames.add(sheetName);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Could not read the sheets of '" + file + "', it is imported as one document.", e);
+			return null;
+		}
+		if (sheetNames.isEmpty()) {
+			logger.warn("No sheet of '{}' matches '{}', it is imported as one document.", file, sheetPattern.pattern());
+			return null;
+		}
+		return sheetNames;
+	}
+	
 	/**
 	 * <strong>OVERRIDE THIS METHOD FOR CUSTOMIZATION</strong>
 	 * <br/>
@@ -116,8 +356,50 @@ public class SpreadsheetImporter extends PepperImporterImpl implements PepperImp
 	 */
 	@Override
 	public boolean isReadyToStart() throws PepperModuleNotReadyException{
-		//TODO make some initializations if necessary
+		// compile the tier mapping once for all mappers and report syntax errors of the properties
+		TierMapping tierMapping = ((SpreadsheetImporterProperties) getProperties()).getTierMapping();
+		for (String error : tierMapping.getErrors()) {
+			logger.error(error);
+		}
+		SpreadsheetImporterProperties props = (SpreadsheetImporterProperties) getProperties();
+		importMetrics = new ImportMetrics(MODULE_NAME, props.getMetrics());
+		stringPool = props.getStringPoolSize() > 0 ? new StringPool(props.getStringPoolSize()) : StringPool.NONE;
+		importCache = null;
+		if (props.getCacheDir() != null && !props.getCacheDir().trim().isEmpty()) {
+			importCache = new ImportCache(new File(props.getCacheDir().trim()), props.getCacheMaxSize() * 1024L * 1024L);
+		}
 		return(super.isReadyToStart());
 	}
+	
+	/**
+	 * @return the metrics summed up over all documents imported so far
+	 */
+	public ImportMetrics getImportMetrics() {
+		return importMetrics;
+	}
+	
+	/**
+	 * @return the cache of the imported documents, null if no cache is used
+	 */
+	public ImportCache getImportCache() {
+		return importCache;
+	}
+	
+	/**
+	 * Logs the metrics of the whole import, if the property 'metrics' is set, and the use of the
+	 * import cache. Closes the shared workbooks left open by failed mappers.
+	 */
+	@Override
+	public void end() throws PepperModuleException {
+		super.end();
+		sharedSpreadsheets.closeAll();
+		if (importMetrics.isEnabled()) {
+			logger.info("Import metrics: {}", importMetrics);
+		}
+		if (importCache != null) {
+			logger.info("Import cache {}: {} documents loaded, {} documents imported", importCache.getDirectory(),
+					importCache.getHits(), importCache.getMisses());
+		}
+	}
 
 }
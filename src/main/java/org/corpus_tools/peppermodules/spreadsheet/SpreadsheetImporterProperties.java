@@ -37,8 +37,21 @@ public class SpreadsheetImporterProperties extends PepperModuleProperties {
 	public static final String PROP_ADD_ORDER_RELATION = "addOrderRelation";
 	public static final String PROP_ANNO_SHORT_PRIM_REL = "shortAnnoPrimRel";
 	public static final String PROP_PARSE_NAMESPACE = "parseNamespace";
+	public static final String PROP_STREAMING = "streaming";
+	public static final String PROP_CONTINUATION_MARKER = "continuationMarker";
+	public static final String PROP_PARALLEL_ANNOTATIONS = "parallelAnnotations";
+	public static final String PROP_METRICS = "metrics";
+	public static final String PROP_CACHE_DIR = "cacheDir";
+	public static final String PROP_CACHE_MAX_SIZE = "cacheMaxSize";
+	public static final String PROP_METADATA_ONLY = "metadataOnly";
+	public static final String PROP_STRING_POOL_SIZE = "stringPoolSize";
+	public static final String PROP_SHEETS_AS_DOCUMENTS = "sheetsAsDocuments";
+	public static final String PROP_DISCOVERY_THREADS = "discoveryThreads";
 //	public static final String PROP_USE_ANNO_FOR_PRIM_DETECTION = "useAnnoForPrimDetection";
 
+	/** compiled form of the tier related properties, see {@link #getTierMapping()} */
+	private transient volatile TierMapping tierMapping = null;
+
 	public SpreadsheetImporterProperties() {
 		addProperty(new PepperModuleProperty<>(PROP_PRIMARY_TEXT, String.class, "Defines the name of the column(s), that hold the primary text, this can either be a single column name, or a comma seperated enumeration of column names (key: 'primText', default value: 'tok').", "tok", false));
 		addProperty(new PepperModuleProperty<>(PROP_CORPUS_SHEET, String.class, "Defines the sheet, that holds the actual corpus information (key: 'corpusSheet', default is 'Tabelle1'). By default the first sheet of your spreadsheets will be used (independent of the name).", "Tabelle1", false));
@@ -51,6 +64,16 @@ public class SpreadsheetImporterProperties extends PepperModuleProperties {
 		addProperty(new PepperModuleProperty<>(PROP_ANNO_SHORT_PRIM_REL, String.class, "Defines which primary text tiers are the basis of which annotation tiers, therefor a comma seperated list of primary text tiers, followed by a list of all annotations that refer to the primary tier, is needed. A possible key-value set could be: key='shortAnnoPrimRel', value='primText1={anno1, anno2}, primText2={anno3}' (key: 'annoPrimRel', default is 'null').",  null, false));
 //		addProperty(new PepperModuleProperty<>(PROP_USE_ANNO_FOR_PRIM_DETECTION, Boolean.class, "If true use the annotations to detect the related primary text of an annotation. Therefore the annotation should have the following form: annoName[relatedPrimaryText]. Default is 'true'.",  true, false));
 		addProperty(new PepperModuleProperty<>(PROP_PARSE_NAMESPACE, Boolean.class, "Part of the column name before '::' are interpreted as namespace of the annotation instead of the name", false, false));
+		addProperty(new PepperModuleProperty<>(PROP_STREAMING, Boolean.class, "If true, xlsx and xls files are read with the streaming event models of POI instead of loading the whole workbook into memory. Default is 'false'.", false, false));
+		addProperty(new PepperModuleProperty<>(PROP_CONTINUATION_MARKER, String.class, "Defines the cell value, that continues the cell above it in csv and tsv files, as merged cells do in xlsx and xls files. Default is '^'.", "^", false));
+		addProperty(new PepperModuleProperty<>(PROP_PARALLEL_ANNOTATIONS, Boolean.class, "If true, the spans of the annotation tiers of a document are computed in parallel, the graph is still built by a single thread. Default is 'false'.", false, false));
+		addProperty(new PepperModuleProperty<>(PROP_METRICS, Boolean.class, "If true, the time spent in each phase of the import and the number of rows, cells, tokens, spans and merged regions are logged for each document and for the whole import. Default is 'false'.", false, false));
+		addProperty(new PepperModuleProperty<>(PROP_CACHE_DIR, String.class, "Defines a directory, in which the imported documents are cached. A document is only imported again, if the content of its file or the importer properties changed, otherwise it is loaded from the cache. By default no cache is used.", null, false));
+		addProperty(new PepperModuleProperty<>(PROP_CACHE_MAX_SIZE, Integer.class, "Maximal size of the cache in megabytes, the documents used least recently are removed from the cache if it grows larger. Default is '1024'.", 1024, false));
+		addProperty(new PepperModuleProperty<>(PROP_METADATA_ONLY, Boolean.class, "If true, only the names of the tiers in the header row of the corpus sheet and the meta data are imported, no tokens or spans are created. The tier names are added to the document as meta annotation 'spreadsheet::tiers'. Streaming readers stop reading the corpus sheet after its header. Default is 'false'.", false, false));
+		addProperty(new PepperModuleProperty<>(PROP_STRING_POOL_SIZE, Integer.class, "Maximal number of distinct tier names, annotation values and meta data strings, which are shared by all documents of an import instead of being kept once per cell. Default is '0', which disables the pool.", 0, false));
+		addProperty(new PepperModuleProperty<>(PROP_SHEETS_AS_DOCUMENTS, String.class, "A regular expression matching sheet names. If set, each xls or xlsx file becomes a corpus holding one document for each sheet whose name matches, the property 'corpusSheet' is ignored for these documents. The meta sheet is never imported as a document, its meta data are added to each document of the file. The documents of a file share one opened workbook. Default is 'null', which imports one document per file.", null, false));
+		addProperty(new PepperModuleProperty<>(PROP_DISCOVERY_THREADS, Integer.class, "Number of threads which walk the corpus directory in parallel and recognize xls and xlsx files by their signature. Lock files ('~$*') and hidden files are skipped. 0 uses the walk of Pepper, which recognizes files by their ending only. Default is '0'.", 0, false));
 	}
 
 	public String getPrimaryText() {
@@ -93,6 +116,62 @@ public class SpreadsheetImporterProperties extends PepperModuleProperties {
 		return (Boolean) getProperty(PROP_PARSE_NAMESPACE).getValue();
 	}
 	
+	public Boolean getStreaming() {
+		return (Boolean) getProperty(PROP_STREAMING).getValue();
+	}
+	
+	public String getContinuationMarker() {
+		return (String) getProperty(PROP_CONTINUATION_MARKER).getValue();
+	}
+	
+	public Boolean getParallelAnnotations() {
+		return (Boolean) getProperty(PROP_PARALLEL_ANNOTATIONS).getValue();
+	}
+	
+	public Boolean getMetrics() {
+		return (Boolean) getProperty(PROP_METRICS).getValue();
+	}
+	
+	public String getCacheDir() {
+		return (String) getProperty(PROP_CACHE_DIR).getValue();
+	}
+	
+	public Integer getCacheMaxSize() {
+		return (Integer) getProperty(PROP_CACHE_MAX_SIZE).getValue();
+	}
+	
+	public Boolean getMetadataOnly() {
+		return (Boolean) getProperty(PROP_METADATA_ONLY).getValue();
+	}
+	
+	public Integer getStringPoolSize() {
+		return (Integer) getProperty(PROP_STRING_POOL_SIZE).getValue();
+	}
+	
+	public String getSheetsAsDocuments() {
+		return (String) getProperty(PROP_SHEETS_AS_DOCUMENTS).getValue();
+	}
+	
+	public Integer getDiscoveryThreads() {
+		return (Integer) getProperty(PROP_DISCOVERY_THREADS).getValue();
+	}
+
+	/**
+	 * Returns the compiled form of the properties 'primText', 'annoPrimRel', 'shortAnnoPrimRel' and
+	 * 'setLayer'. The mapping is compiled once and shared by all mappers, it is only compiled again,
+	 * if one of these properties changed.
+	 * 
+	 * @return the compiled {@link TierMapping}
+	 */
+	public TierMapping getTierMapping() {
+		TierMapping mapping = tierMapping;
+		if (mapping == null || !mapping.isCompiledFrom(this)) {
+			mapping = TierMapping.compile(this);
+			tierMapping = mapping;
+		}
+		return mapping;
+	}
+	
 //	public Boolean getUseAnnoForPrimDetection() {
 //		return (Boolean) getProperty(PROP_USE_ANNO_FOR_PRIM_DETECTION).getValue();
 //	}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Gives access to the sheets of a spreadsheet document. Implementations decide, how much of the
+ * document is kept in memory. A reader has to be closed, when the document is mapped.
+ */
+public interface SpreadsheetReader extends Closeable {
+
+	/**
+	 * @return the names of all sheets in the order of the document
+	 */
+	public List<String> getSheetNames() throws IOException;
+
+	/**
+	 * @param name the name of a sheet, the case is ignored as by POI
+	 * @return the (0-based) index of the first sheet with the given name, -1 if there is none
+	 */
+	public default int getSheetIndex(String name) throws IOException {
+		List<String> sheetNames = getSheetNames();
+		for (int index = 0; index < sheetNames.size(); index++) {
+			if (sheetNames.get(index).equalsIgnoreCase(name)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index (0-based) index of the sheet
+	 * @return the sheet at the given index, null if there is no such sheet
+	 */
+	public SheetTable getSheet(int index) throws IOException;
+
+	/**
+	 * @param name the name of the sheet
+	 * @return the sheet with the given name, null if there is no such sheet
+	 */
+	public default SheetTable getSheet(String name) throws IOException {
+		int index = getSheetIndex(name);
+		return index < 0 ? null : getSheet(index);
+	}
+
+	/**
+	 * Reads only the first rows of a sheet, e.g. its header. Readers which load the whole document
+	 * anyway return the complete sheet.
+	 * 
+	 * @param index (0-based) index of the sheet
+	 * @param maxRows the number of rows to read at least, the following rows may be missing
+	 * @return the sheet at the given index, null if there is no such sheet
+	 */
+	public default SheetTable getSheet(int index, int maxRows) throws IOException {
+		return getSheet(index);
+	}
+
+	/**
+	 * @param name the name of the sheet
+	 * @param maxRows the number of rows to read at least, the following rows may be missing
+	 * @return the sheet with the given name, null if there is no such sheet
+	 * @see #getSheet(int, int)
+	 */
+	public default SheetTable getSheet(String name, int maxRows) throws IOException {
+		int index = getSheetIndex(name);
+		return index < 0 ? null : getSheet(index, maxRows);
+	}
+
+	/**
+	 * Passes the rows and merged regions of a sheet to the handler. Event based readers pass each row
+	 * as soon as it is read and do not keep the cells of the sheet, the other readers pass the rows of
+	 * {@link #getSheet(int)}.
+	 * 
+	 * @param index (0-based) index of the sheet
+	 * @param handler receives the rows of the sheet
+	 * @return false, if there is no such sheet
+	 */
+	public default boolean readSheet(int index, SheetRowHandler handler) throws IOException {
+		SheetTable sheet = getSheet(index);
+		if (sheet == null) {
+			return false;
+		}
+		for (int rowNum = 0; rowNum <= sheet.getLastRowNum(); rowNum++) {
+			String[] values = sheet.getRowValues(rowNum);
+			if (values != null) {
+				handler.row(rowNum, values);
+			}
+		}
+		for (CellRangeAddress region : sheet.getMergedRegions()) {
+			handler.mergedRegion(region);
+		}
+		return true;
+	}
+
+	/**
+	 * @param name the name of the sheet
+	 * @param handler receives the rows of the sheet
+	 * @return false, if there is no such sheet
+	 * @see #readSheet(int, SheetRowHandler)
+	 */
+	public default boolean readSheet(String name, SheetRowHandler handler) throws IOException {
+		int index = getSheetIndex(name);
+		return index >= 0 && readSheet(index, handler);
+	}
+
+	/**
+	 * @return true, if different sheets may be read by several threads at the same time
+	 */
+	public default boolean isConcurrent() {
+		return false;
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of strings shared by all mappers of an import, so that tier names and annotation values
+ * repeated within and across documents are kept in memory only once. The pool stops taking new
+ * strings once it holds the maximal number of strings, the strings already pooled are kept. Since
+ * the size is checked without locking, concurrent mappers may exceed the maximum by a few strings.
+ */
+public class StringPool {
+
+	/** a pool which does not keep any string */
+	public static final StringPool NONE = new StringPool(0);
+
+	/** longer strings are rarely repeated and are not pooled */
+	public static final int MAX_LENGTH = 128;
+
+	private final int maxSize;
+	private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxSize maximal number of pooled strings, 0 if nothing shall be pooled
+	 */
+	public StringPool(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @param value
+	 * @return the pooled string equal to the given one, the given string itself if it is not pooled
+	 */
+	public String intern(String value) {
+		if (value == null || maxSize <= 0 || value.length() > MAX_LENGTH) {
+			return value;
+		}
+		String pooled = strings.get(value);
+		if (pooled != null) {
+			return pooled;
+		}
+		if (strings.size() >= maxSize) {
+			return value;
+		}
+		pooled = strings.putIfAbsent(value, value);
+		return pooled == null ? value : pooled;
+	}
+
+	/**
+	 * @return the number of pooled strings
+	 */
+	public int size() {
+		return strings.size();
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The compiled form of the properties 'primText', 'annoPrimRel', 'shortAnnoPrimRel' and 'setLayer'.
+ * The property strings are validated and split once, afterwards the mapping is immutable and can be
+ * shared by all mappers of an import. Syntax errors are collected instead of being logged, so that
+ * they can be reported once.
+ */
+public class TierMapping {
+
+	private static final String ERR_MSG_BOTH_ANNO_PRIM_RELS = "Wrong property handling. Please use only one property to specify which annotation refers to which primary text tier (exclusive use of either 'annoPrimRel' or 'shortAnnoPrimRel').";
+	private static final String ERR_MSG_ANNO_PRIM_REL_SYNTAX = "Can not match the annotations to their primary text, because of syntax errors. Please check the syntax of your property settings.";
+	private static final String ERR_MSG_SHORT_ANNO_PRIM_REL_SYNTAX = "Can not match the annotations to their primary text because the property settings do not match the needed syntax (missing \"=\"). Please check the syntax of your property settings.";
+	private static final String ERR_MSG_LAYER_SYNTAX = "Can not create SLayer because the property settings do not match the needed syntax. Please check the syntax of your property settings.";
+	private static final String ERR_MSG_LAYER_MISSING_EQUALS = "Can not create SLayer because the property settings do not match the needed syntax (missing \"=\"). Please check the syntax of your property settings.";
+
+	private final String primaryTextProperty;
+	private final String annoPrimRelProperty;
+	private final String shortAnnoPrimRelProperty;
+	private final String layerProperty;
+
+	private final List<String> primaryTexts;
+	private final Map<String, String> annoPrimRelations;
+	private final Map<String, String> tierLayers;
+	private final List<String> errors;
+
+	private TierMapping(String primaryTextProperty, String annoPrimRelProperty,
+			String shortAnnoPrimRelProperty, String layerProperty) {
+		this.primaryTextProperty = primaryTextProperty;
+		this.annoPrimRelProperty = annoPrimRelProperty;
+		this.shortAnnoPrimRelProperty = shortAnnoPrimRelProperty;
+		this.layerProperty = layerProperty;
+
+		List<String> errorList = new ArrayList<>();
+		// seperate string of primary text tiers into list by commas
+		this.primaryTexts = primaryTextProperty == null ? Collections.<String>emptyList()
+				: Collections.unmodifiableList(Arrays.asList(primaryTextProperty.split("\\s*,\\s*")));
+		Map<String, String> annoPrims = new HashMap<>();
+		if (annoPrimRelProperty != null && shortAnnoPrimRelProperty != null) {
+			errorList.add(ERR_MSG_BOTH_ANNO_PRIM_RELS);
+		} else {
+			compileAnnoPrimRel(annoPrimRelProperty, annoPrims, errorList);
+			compileShortAnnoPrimRel(shortAnnoPrimRelProperty, annoPrims, errorList);
+		}
+		this.annoPrimRelations = Collections.unmodifiableMap(annoPrims);
+		Map<String, String> layers = new HashMap<>();
+		compileLayers(layerProperty, layers, errorList);
+		this.tierLayers = Collections.unmodifiableMap(layers);
+		this.errors = Collections.unmodifiableList(errorList);
+	}
+
+	/**
+	 * Compiles the tier related properties of the given {@link SpreadsheetImporterProperties}.
+	 * 
+	 * @param props
+	 * @return the compiled mapping
+	 */
+	public static TierMapping compile(SpreadsheetImporterProperties props) {
+		return new TierMapping(props.getPrimaryText(), props.getAnnoPrimRel(),
+				props.getShortAnnoPrimRel(), props.getLayer());
+	}
+
+	/**
+	 * @param props
+	 * @return true, if this mapping was compiled from the current values of the given properties
+	 */
+	public boolean isCompiledFrom(SpreadsheetImporterProperties props) {
+		return Objects.equals(primaryTextProperty, props.getPrimaryText())
+				&& Objects.equals(annoPrimRelProperty, props.getAnnoPrimRel())
+				&& Objects.equals(shortAnnoPrimRelProperty, props.getShortAnnoPrimRel())
+				&& Objects.equals(layerProperty, props.getLayer());
+	}
+
+	/**
+	 * annoPrimRel: anno1=anno1[prim1], anno2=anno2[prim2], ...
+	 */
+	private static void compileAnnoPrimRel(String annoPrimRel, Map<String, String> annoPrims,
+			List<String> errorList) {
+		if (annoPrimRel == null) {
+			return;
+		}
+		if (annoPrimRel.matches("(?s).+],.+") || annoPrimRel.matches("(?s).+]")) {
+			for (String annoPrim : annoPrimRel.split("\\s*,\\s*")) {
+				String[] splitted = annoPrim.split("=", 2);
+				String[] annoPrimCouple = splitted.length > 1 ? splitted[1].split("\\[") : null;
+				if (annoPrimCouple != null && annoPrimCouple.length > 1) {
+					annoPrims.put(splitted[0], annoPrimCouple[1].replace("]", ""));
+				} else {
+					errorList.add(ERR_MSG_ANNO_PRIM_REL_SYNTAX + " The problematic entry is:\n" + annoPrim);
+				}
+			}
+		} else {
+			errorList.add(ERR_MSG_ANNO_PRIM_REL_SYNTAX);
+		}
+	}
+
+	/**
+	 * shortAnnoPrimRel: prim1={anno1, anno2}, prim2={anno3}, ...
+	 */
+	private static void compileShortAnnoPrimRel(String shortAnnoPrimRel,
+			Map<String, String> annoPrims, List<String> errorList) {
+		if (shortAnnoPrimRel == null) {
+			return;
+		}
+		if (shortAnnoPrimRel.matches("(?s).+},.+") || shortAnnoPrimRel.matches("(?s).+}")) {
+			for (String annoPrim : shortAnnoPrimRel.split("\\s*},\\s*")) {
+				String[] primAnnoPair = annoPrim.split("=");
+				if (primAnnoPair.length == 2) {
+					for (String anno : primAnnoPair[1].split("\\s*,\\s*")) {
+						annoPrims.put(anno.replace("}", "").replace("{", ""), primAnnoPair[0]);
+					}
+				} else {
+					errorList.add(ERR_MSG_SHORT_ANNO_PRIM_REL_SYNTAX);
+				}
+			}
+		} else {
+			errorList.add(ERR_MSG_ANNO_PRIM_REL_SYNTAX);
+		}
+	}
+
+	/**
+	 * setLayer: layer1={tier1, tier2}, layer2={tier3}, ...
+	 */
+	private static void compileLayers(String tierLayerCouple, Map<String, String> layers,
+			List<String> errorList) {
+		if (tierLayerCouple == null || tierLayerCouple.isEmpty()) {
+			return;
+		}
+		if (tierLayerCouple.matches("(?s).+},.+") || tierLayerCouple.matches("(?s).+}")) {
+			for (String annoLayer : tierLayerCouple.split("\\s*},\\s*")) {
+				String[] annoLayerPair = annoLayer.split("=");
+				if (annoLayerPair.length == 2) {
+					for (String tier : annoLayerPair[1].split("\\s*,\\s*")) {
+						layers.put(tier.replace("{", "").replace("}", ""), annoLayerPair[0]);
+					}
+				} else {
+					errorList.add(ERR_MSG_LAYER_MISSING_EQUALS);
+				}
+			}
+		} else {
+			errorList.add(ERR_MSG_LAYER_SYNTAX);
+		}
+	}
+
+	/**
+	 * @return the names of the primary text tiers in the configured order
+	 */
+	public List<String> getPrimaryTexts() {
+		return primaryTexts;
+	}
+
+	/**
+	 * @return true, if the relation of annotations to primary texts is configured by one of the
+	 *         properties 'annoPrimRel' or 'shortAnnoPrimRel'
+	 */
+	public boolean hasAnnoPrimRel() {
+		return annoPrimRelProperty != null || shortAnnoPrimRelProperty != null;
+	}
+
+	/**
+	 * @param annoTier name of the annotation tier without the primary text in square brackets
+	 * @return the configured primary text tier of the annotation tier, null if there is none
+	 */
+	public String getPrimaryText(String annoTier) {
+		return annoPrimRelations.get(annoTier);
+	}
+
+	/**
+	 * @param tier name of a primary text or annotation tier
+	 * @return the configured layer name of the tier, null if there is none
+	 */
+	public String getLayer(String tier) {
+		return tierLayers.get(tier);
+	}
+
+	/**
+	 * @return all tiers with a configured layer and their layer names
+	 */
+	public Map<String, String> getTierLayers() {
+		return tierLayers;
+	}
+
+	/**
+	 * @return the syntax errors of the properties, empty if there are none
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+}
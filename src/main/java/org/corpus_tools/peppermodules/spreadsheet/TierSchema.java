@@ -0,0 +1,284 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.poi.ss.util.CellReference;
+import org.corpus_tools.salt.util.SaltUtil;
+
+/**
+ * The tiers of a corpus sheet as described by its header row. The schema is built in one pass over
+ * the header and holds everything the mapping needs to know about a column: its kind, its name
+ * without the primary text in square brackets, the split qualified name, the column of the primary
+ * text it belongs to and its layer.
+ */
+public class TierSchema {
+
+	/**
+	 * The role of a column of the corpus sheet.
+	 */
+	public enum Kind {
+		/** the column has no name or its primary text does not exist, it is ignored */
+		IGNORED,
+		/** the column holds a primary text */
+		PRIMARY_TEXT,
+		/** the column holds annotations of a primary text */
+		ANNOTATION,
+		/** the column holds annotations, but no primary text was found for it */
+		UNBOUND
+	}
+
+	/**
+	 * A single column of the corpus sheet.
+	 */
+	public static class Tier {
+		private final int column;
+		private final String header;
+		private final String name;
+		private final String namespace;
+		private final String localName;
+		private final Kind kind;
+		private final int primaryTextColumn;
+		private final String layer;
+
+		private Tier(int column, String header, String name, Pair<String, String> qName, Kind kind,
+				int primaryTextColumn, String layer) {
+			this.column = column;
+			this.header = header;
+			this.name = name;
+			this.namespace = qName.getKey();
+			this.localName = qName.getValue();
+			this.kind = kind;
+			this.primaryTextColumn = primaryTextColumn;
+			this.layer = layer;
+		}
+
+		/**
+		 * @return the (0-based) index of the column
+		 */
+		public int getColumn() {
+			return column;
+		}
+
+		/**
+		 * @return the content of the header cell
+		 */
+		public String getHeader() {
+			return header;
+		}
+
+		/**
+		 * @return the name of the tier without the primary text in square brackets
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the namespace of the annotation, null if the namespace is not parsed or there is none
+		 */
+		public String getNamespace() {
+			return namespace;
+		}
+
+		/**
+		 * @return the name of the annotation without its namespace
+		 */
+		public String getLocalName() {
+			return localName;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return the column of the primary text the annotations belong to, -1 if there is none
+		 */
+		public int getPrimaryTextColumn() {
+			return primaryTextColumn;
+		}
+
+		/**
+		 * @return the name of the layer of the tier, null if there is none
+		 */
+		public String getLayer() {
+			return layer;
+		}
+	}
+
+	private final List<Tier> primaryTextTiers;
+	private final List<Tier> annotationTiers;
+	private final SortedSet<String> unboundTierNames;
+
+	private TierSchema(List<Tier> tiers) {
+		List<Tier> primaryTexts = new ArrayList<>();
+		List<Tier> annotations = new ArrayList<>();
+		SortedSet<String> unbound = new TreeSet<>();
+		for (Tier tier : tiers) {
+			if (Kind.PRIMARY_TEXT.equals(tier.getKind())) {
+				primaryTexts.add(tier);
+			} else if (Kind.ANNOTATION.equals(tier.getKind())) {
+				annotations.add(tier);
+			} else if (Kind.UNBOUND.equals(tier.getKind())) {
+				unbound.add(tier.getHeader());
+			}
+		}
+		this.primaryTextTiers = Collections.unmodifiableList(primaryTexts);
+		this.annotationTiers = Collections.unmodifiableList(annotations);
+		this.unboundTierNames = Collections.unmodifiableSortedSet(unbound);
+	}
+
+	/**
+	 * Reads the header row of the corpus sheet and assigns each column its role. Problems with the
+	 * header, like columns without a name or references to missing primary texts, are logged. The
+	 * names of the tiers are taken from the given pool.
+	 *
+	 * @param headerRow the formatted values of the header row by column, null for cells which do not
+	 *        exist
+	 * @param tierMapping the compiled tier properties
+	 * @param parseNamespace true, if the annotation names are qualified names
+	 * @param documentName name of the document used in the log messages
+	 * @param stringPool pool of the tier names shared by the documents of an import
+	 * @return the schema of the sheet
+	 */
+	public static TierSchema build(String[] headerRow, TierMapping tierMapping, boolean parseNamespace,
+			String documentName, StringPool stringPool) {
+		// the tiers are the physical cells of the header row, but the names of all cells up to the
+		// last one can be referenced
+		String[] headers = headerRow == null ? new String[0] : headerRow;
+		int tierCount = 0;
+		Map<String, Integer> columnsByHeader = new HashMap<>();
+		for (int column = 0; column < headers.length; column++) {
+			if (headers[column] != null) {
+				tierCount++;
+				// the last column of a name wins
+				columnsByHeader.put(headers[column], column);
+			}
+		}
+
+		List<String> primaryTexts = tierMapping.getPrimaryTexts();
+		List<Tier> tiers = new ArrayList<>(tierCount);
+		List<String> emptyColumnList = new ArrayList<>();
+		for (int column = 0; column < tierCount; column++) {
+			String header = headers[column];
+			if (header == null || header.isEmpty()) {
+				emptyColumnList.add(CellReference.convertNumToColString(column));
+				tiers.add(new Tier(column, header, header, Pair.<String, String>of(null, header),
+						Kind.IGNORED, -1, null));
+				continue;
+			}
+			for (String emptyColumn : emptyColumnList) {
+				SpreadsheetImporter.logger.warn("Column \"" + emptyColumn + "\" in document \""
+						+ documentName + "\" has no name.");
+			}
+			emptyColumnList.clear();
+
+			boolean hasPrimInHeader = header.matches(".+\\[.+\\]");
+			// remove primary text info of annotation if given
+			String name = hasPrimInHeader ? header.split("\\[")[0] : header;
+			Kind kind = Kind.UNBOUND;
+			int primaryTextColumn = -1;
+			if (primaryTexts.contains(header)) {
+				// current tier contains primary text
+				kind = Kind.PRIMARY_TEXT;
+				name = header;
+			} else if (hasPrimInHeader || tierMapping.hasAnnoPrimRel()) {
+				if (hasPrimInHeader) {
+					// the belonging primary text was set by the annotator
+					String primTier = header.split("\\[")[1].replace("]", "");
+					primaryTextColumn = getPrimaryTextColumn(primTier, columnsByHeader, documentName);
+					kind = Kind.ANNOTATION;
+				}
+				String primOfAnnoFromConfig = tierMapping.getPrimaryText(header.split("\\[")[0]);
+				if (primOfAnnoFromConfig != null) {
+					// the belonging primary text was set by property
+					int configuredColumn = getPrimaryTextColumn(primOfAnnoFromConfig, columnsByHeader,
+							documentName);
+					if (configuredColumn >= 0) {
+						if (primaryTextColumn >= 0) {
+							SpreadsheetImporter.logger.warn("The annotation \"" + header.split("\\[")[0]
+									+ "\" was allready referenced to the primary text in column \""
+									+ primaryTextColumn
+									+ "\". This reference was overwritten. The new primary text for \""
+									+ header.split("\\[")[0] + "\" is \"" + primOfAnnoFromConfig + "\".");
+						}
+						primaryTextColumn = configuredColumn;
+					}
+					kind = Kind.ANNOTATION;
+				}
+			} else if (primaryTexts.size() == 1) {
+				// There is only one primary text so we can safely assume this is the one the
+				// annotation is connected to.
+				primaryTextColumn = getPrimaryTextColumn(primaryTexts.get(0), columnsByHeader,
+						documentName);
+				kind = Kind.ANNOTATION;
+			}
+			if (Kind.ANNOTATION.equals(kind) && primaryTextColumn < 0) {
+				// the referenced primary text does not exist, which was already reported
+				kind = Kind.IGNORED;
+			}
+			Pair<String, String> qName = parseNamespace ? SaltUtil.splitQName(name)
+					: Pair.<String, String>of(null, name);
+			qName = Pair.of(stringPool.intern(qName.getLeft()), stringPool.intern(qName.getRight()));
+			tiers.add(new Tier(column, header, stringPool.intern(name), qName, kind, primaryTextColumn,
+					tierMapping.getLayer(name)));
+		}
+		return new TierSchema(tiers);
+	}
+
+	private static int getPrimaryTextColumn(String primTier, Map<String, Integer> columnsByHeader,
+			String documentName) {
+		Integer column = columnsByHeader.get(primTier);
+		if (column == null) {
+			SpreadsheetImporter.logger.warn("The primary text \"" + primTier
+					+ "\" does not exist in the document \"" + documentName + "\".");
+			return -1;
+		}
+		return column;
+	}
+
+	/**
+	 * @return the primary text tiers in the order of their columns
+	 */
+	public List<Tier> getPrimaryTextTiers() {
+		return primaryTextTiers;
+	}
+
+	/**
+	 * @return the annotation tiers with a primary text in the order of their columns
+	 */
+	public List<Tier> getAnnotationTiers() {
+		return annotationTiers;
+	}
+
+	/**
+	 * @return the sorted names of all annotation tiers without a primary text
+	 */
+	public SortedSet<String> getUnboundTierNames() {
+		return unboundTierNames;
+	}
+}
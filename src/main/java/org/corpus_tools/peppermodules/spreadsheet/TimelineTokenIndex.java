@@ -0,0 +1,94 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * The tokens of a single primary text indexed by the points of the timeline they cover. The tokens
+ * are passed in the order of their start points, which is the order of the rows they were created
+ * from.
+ */
+public class TimelineTokenIndex {
+
+	private final SToken[] tokens;
+	private final int[] starts;
+	private final int[] ends;
+	private final int size;
+	/** index of the first token covering a point of time, -1 if there is none */
+	private final int[] firstTokenAtPoint;
+
+	/**
+	 * Creates the index of all tokens of a primary text at once.
+	 *
+	 * @param tokens the tokens in the order of their start points
+	 * @param starts first point of time of each token
+	 * @param ends last point of time (exclusive) of each token
+	 * @param size number of tokens
+	 * @param pointsOfTime number of points of the timeline
+	 */
+	public TimelineTokenIndex(SToken[] tokens, int[] starts, int[] ends, int size, int pointsOfTime) {
+		this.tokens = Arrays.copyOf(tokens, Math.max(size, 1));
+		this.starts = Arrays.copyOf(starts, Math.max(size, 1));
+		this.ends = Arrays.copyOf(ends, Math.max(size, 1));
+		this.size = size;
+		int maxEnd = Math.max(pointsOfTime, 0);
+		for (int i = 0; i < size; i++) {
+			maxEnd = Math.max(maxEnd, ends[i]);
+		}
+		firstTokenAtPoint = new int[maxEnd];
+		Arrays.fill(firstTokenAtPoint, -1);
+		for (int i = size - 1; i >= 0; i--) {
+			// walking backwards leaves the first token at each point
+			Arrays.fill(firstTokenAtPoint, Math.max(starts[i], 0), Math.max(ends[i], 0), i);
+		}
+	}
+
+	/**
+	 * Returns all tokens overlapping the points of time from start (inclusive) to end (exclusive) in
+	 * the order of the text.
+	 *
+	 * @param start
+	 * @param end
+	 * @return the overlapping tokens, empty if there are none
+	 */
+	public List<SToken> getTokens(int start, int end) {
+		List<SToken> result = new ArrayList<>();
+		if (size == 0 || start >= end) {
+			return result;
+		}
+		int first;
+		if (start >= 0 && start < firstTokenAtPoint.length && firstTokenAtPoint[start] >= 0) {
+			first = firstTokenAtPoint[start];
+		} else {
+			// no token covers the start, begin with the first token starting afterwards
+			first = Arrays.binarySearch(starts, 0, size, start);
+			first = first < 0 ? -first - 1 : first;
+		}
+		for (int i = first; i < size && starts[i] < end; i++) {
+			if (ends[i] > start) {
+				result.add(tokens[i]);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+/**
+ * A {@link SpreadsheetReader} loading the whole workbook into the POI user model. This works for
+ * xls and xlsx files alike. The workbook is opened read-only from the file, so the package is read
+ * from disk instead of being buffered in memory. Therefore the workbook stays open until the reader
+ * is closed.
+ */
+public class WorkbookReader implements SpreadsheetReader {
+
+	private final Workbook workbook;
+
+	public WorkbookReader(File excelFile) throws IOException {
+		try {
+			workbook = WorkbookFactory.create(excelFile, null, true);
+		} catch (EncryptedDocumentException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public List<String> getSheetNames() {
+		List<String> sheetNames = new ArrayList<>();
+		for (Sheet sheet : workbook) {
+			sheetNames.add(sheet.getSheetName());
+		}
+		return sheetNames;
+	}
+
+	@Override
+	public SheetTable getSheet(int index) {
+		if (index < 0 || index >= workbook.getNumberOfSheets()) {
+			return null;
+		}
+		return new PoiSheetTable(workbook.getSheetAt(index));
+	}
+
+	@Override
+	public SheetTable getSheet(String name) {
+		Sheet sheet = workbook.getSheet(name);
+		return sheet == null ? null : new PoiSheetTable(sheet);
+	}
+
+	@Override
+	public SheetTable getSheet(String name, int maxRows) {
+		// the workbook is loaded completely anyway
+		return getSheet(name);
+	}
+
+	/**
+	 * Looks the sheet up like {@link #getSheet(String)}, the case of the name is ignored.
+	 */
+	@Override
+	public boolean readSheet(String name, SheetRowHandler handler) throws IOException {
+		int index = workbook.getSheetIndex(name);
+		return index >= 0 && readSheet(index, handler);
+	}
+
+	/**
+	 * The user model of POI is not thread safe, even reading cells may create or cache objects of the
+	 * workbook, so the sheets are read one after the other.
+	 */
+	@Override
+	public boolean isConcurrent() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		workbook.close();
+	}
+}
@@ -0,0 +1,373 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MergeCellsRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.FormulaError;
+
+/**
+ * A {@link SpreadsheetReader} for xls (BIFF8) files, which is based on the HSSF event model of POI.
+ * The workbook globals (sheet names, shared strings, formats) are processed once, when the reader is
+ * created. The records of a sheet are processed from the offset of its BOF record in the workbook
+ * stream and each row is passed on as soon as its cells are complete, the record objects themselves
+ * are dropped right away.
+ * <br/>
+ * Encrypted workbooks can only be decrypted from the start of the stream, so their records are
+ * processed from the start and the sheets before the requested one are skipped.
+ */
+public class XlsStreamingReader implements SpreadsheetReader {
+
+	/** returned by the listener to stop processing the workbook stream */
+	private static final short ABORT = 1;
+	private static final short CONTINUE = 0;
+
+	private final POIFSFileSystem fileSystem;
+	/** name of the workbook stream in the file system */
+	private final String workbookName;
+	private final boolean encrypted;
+	/** the sheets in the order of the workbook */
+	private final List<BoundSheetRecord> boundSheets;
+	/** the sheets in the order of their substreams in the workbook stream */
+	private final List<BoundSheetRecord> boundSheetsByBof;
+	private final List<String> sheetNames;
+	private final SSTRecord sstRecord;
+	/** tracks the number formats to format numeric cells as the user model does */
+	private final FormatTrackingHSSFListener formatListener;
+	/** collects the records needed to render formulas */
+	private final SheetRecordCollectingListener workbookBuildingListener;
+	private HSSFWorkbook stubWorkbook = null;
+
+	public XlsStreamingReader(File excelFile) throws IOException {
+		fileSystem = new POIFSFileSystem(excelFile, true);
+		try {
+			workbookName = HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot());
+			encrypted = isEncrypted();
+			HSSFListener noop = (Record record) -> {
+			};
+			formatListener = new FormatTrackingHSSFListener(noop);
+			workbookBuildingListener = new SheetRecordCollectingListener(noop);
+			GlobalsListener globals = new GlobalsListener();
+			HSSFRequest request = new HSSFRequest();
+			request.addListenerForAllRecords(globals);
+			new HSSFEventFactory().abortableProcessWorkbookEvents(request, fileSystem);
+			boundSheets = globals.boundSheets;
+			boundSheetsByBof = Arrays.asList(BoundSheetRecord.orderByBofPosition(boundSheets));
+			sstRecord = globals.sstRecord;
+		} catch (HSSFUserException | IOException | RuntimeException e) {
+			fileSystem.close();
+			throw new IOException("Could not read the workbook globals of '" + excelFile + "'.", e);
+		}
+		List<String> names = new ArrayList<>();
+		for (BoundSheetRecord boundSheet : boundSheets) {
+			names.add(boundSheet.getSheetname());
+		}
+		sheetNames = Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Looks for the FilePass record in the workbook globals. Only the record headers are read, as they
+	 * are never encrypted.
+	 */
+	private boolean isEncrypted() throws IOException {
+		try (DocumentInputStream stream = fileSystem.createDocumentInputStream(workbookName)) {
+			while (stream.available() >= 4) {
+				int sid = stream.readUShort();
+				int size = stream.readUShort();
+				if (sid == FilePassRecord.sid) {
+					return true;
+				}
+				if (sid == EOFRecord.sid) {
+					return false;
+				}
+				stream.skip(size);
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public List<String> getSheetNames() {
+		return sheetNames;
+	}
+
+	@Override
+	public SheetTable getSheet(int index) throws IOException {
+		return getSheet(index, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Stops processing the records at the first cell following the given number of rows, the merged
+	 * regions at the end of the sheet are not read in that case.
+	 */
+	@Override
+	public SheetTable getSheet(int index, int maxRows) throws IOException {
+		if (index < 0 || index >= sheetNames.size()) {
+			return null;
+		}
+		BufferedSheetTable table = new BufferedSheetTable(sheetNames.get(index));
+		readSheet(index, table, maxRows);
+		return table;
+	}
+
+	@Override
+	public boolean readSheet(int index, SheetRowHandler handler) throws IOException {
+		return readSheet(index, handler, Integer.MAX_VALUE);
+	}
+
+	private boolean readSheet(int index, SheetRowHandler handler, int maxRows) throws IOException {
+		if (index < 0 || index >= sheetNames.size()) {
+			return false;
+		}
+		BoundSheetRecord boundSheet = boundSheets.get(index);
+		HSSFRequest request = new HSSFRequest();
+		try (DocumentInputStream stream = fileSystem.createDocumentInputStream(workbookName)) {
+			SheetListener listener;
+			if (encrypted) {
+				// the globals are the first substream, the sheets follow in the order of their offsets
+				listener = new SheetListener(1 + boundSheetsByBof.indexOf(boundSheet), handler, maxRows);
+			} else {
+				// chart and macro sheets have substreams as well, so the offset is the only reliable key
+				stream.skip(boundSheet.getPositionOfBof());
+				listener = new SheetListener(0, handler, maxRows);
+			}
+			request.addListenerForAllRecords(listener);
+			new HSSFEventFactory().abortableProcessEvents(request, stream);
+			listener.finish();
+		} catch (HSSFUserException e) {
+			throw new IOException("Could not read the records of sheet '" + sheetNames.get(index) + "'.", e);
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileSystem.close();
+	}
+
+	private HSSFWorkbook getStubWorkbook() {
+		if (stubWorkbook == null) {
+			stubWorkbook = workbookBuildingListener.getStubHSSFWorkbook();
+		}
+		return stubWorkbook;
+	}
+
+	/**
+	 * Collects the sheets, the shared strings and the records needed to format cells from the workbook
+	 * globals and stops processing at their end.
+	 */
+	private class GlobalsListener extends AbortableHSSFListener {
+		private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+		private SSTRecord sstRecord = null;
+
+		@Override
+		public short abortableProcessRecord(Record record) {
+			formatListener.processRecordInternally(record);
+			workbookBuildingListener.processRecordInternally(record);
+			switch (record.getSid()) {
+			case EOFRecord.sid:
+				return ABORT;
+			case BoundSheetRecord.sid:
+				boundSheets.add((BoundSheetRecord) record);
+				break;
+			case SSTRecord.sid:
+				sstRecord = (SSTRecord) record;
+				break;
+			default:
+				break;
+			}
+			return CONTINUE;
+		}
+	}
+
+	/**
+	 * Passes the rows of the substream with the given number on and stops processing after it. The
+	 * cells are stored row by row, so a row is complete as soon as a cell of a following row arrives.
+	 * Rows defined by a row record are passed on even if they do not contain any cell.
+	 */
+	private class SheetListener extends AbortableHSSFListener {
+		/** number of the substream of the sheet among the substreams processed */
+		private final int sheetBof;
+		private final SheetRowHandler handler;
+		private final int maxRows;
+		/** the defined rows, which were not passed on yet */
+		private final Deque<Integer> pendingRows = new ArrayDeque<>();
+		private int currSubstream = -1;
+		/** depth of nested substreams, e.g. charts embedded in a worksheet */
+		private int depth = 0;
+		private int currRow = -1;
+		/** the values of the current row, reused for all rows */
+		private String[] values = new String[16];
+		/** index of the last cell of the current row plus one */
+		private int width = 0;
+
+		private SheetListener(int sheetBof, SheetRowHandler handler, int maxRows) {
+			this.sheetBof = sheetBof;
+			this.handler = handler;
+			this.maxRows = maxRows;
+		}
+
+		@Override
+		public short abortableProcessRecord(Record record) {
+			switch (record.getSid()) {
+			case BOFRecord.sid:
+				if (depth == 0) {
+					currSubstream++;
+					if (currSubstream > sheetBof) {
+						return ABORT;
+					}
+				}
+				depth++;
+				break;
+			case EOFRecord.sid:
+				depth--;
+				if (depth == 0 && currSubstream == sheetBof) {
+					return ABORT;
+				}
+				break;
+			default:
+				if (currSubstream == sheetBof) {
+					if (record instanceof CellValueRecordInterface
+							&& ((CellValueRecordInterface) record).getRow() >= maxRows) {
+						// the requested rows are complete
+						return ABORT;
+					}
+					processSheetRecord(record);
+				}
+			}
+			return CONTINUE;
+		}
+
+		private void processSheetRecord(Record record) {
+			switch (record.getSid()) {
+			case RowRecord.sid:
+				if (((RowRecord) record).getRowNumber() < maxRows) {
+					pendingRows.add(((RowRecord) record).getRowNumber());
+				}
+				break;
+			case MergeCellsRecord.sid:
+				MergeCellsRecord mergeCells = (MergeCellsRecord) record;
+				for (int i = 0; i < mergeCells.getNumAreas(); i++) {
+					handler.mergedRegion(mergeCells.getAreaAt(i));
+				}
+				break;
+			case LabelSSTRecord.sid:
+				LabelSSTRecord label = (LabelSSTRecord) record;
+				String value = sstRecord == null ? "" : sstRecord.getString(label.getSSTIndex()).getString();
+				setCellValue(label.getRow(), label.getColumn(), value);
+				break;
+			case LabelRecord.sid:
+				LabelRecord oldLabel = (LabelRecord) record;
+				setCellValue(oldLabel.getRow(), oldLabel.getColumn(), oldLabel.getValue());
+				break;
+			case NumberRecord.sid:
+				NumberRecord number = (NumberRecord) record;
+				setCellValue(number.getRow(), number.getColumn(), formatListener.formatNumberDateCell(number));
+				break;
+			case FormulaRecord.sid:
+				// the formula itself is reported, as the user model does without an evaluator
+				FormulaRecord formula = (FormulaRecord) record;
+				setCellValue(formula.getRow(), formula.getColumn(),
+						HSSFFormulaParser.toFormulaString(getStubWorkbook(), formula.getParsedExpression()));
+				break;
+			case BoolErrRecord.sid:
+				BoolErrRecord boolErr = (BoolErrRecord) record;
+				String boolErrValue = boolErr.isBoolean() ? (boolErr.getBooleanValue() ? "TRUE" : "FALSE")
+						: FormulaError.forInt(boolErr.getErrorValue()).getString();
+				setCellValue(boolErr.getRow(), boolErr.getColumn(), boolErrValue);
+				break;
+			case BlankRecord.sid:
+				BlankRecord blank = (BlankRecord) record;
+				setCellValue(blank.getRow(), blank.getColumn(), "");
+				break;
+			default:
+				break;
+			}
+		}
+
+		private void setCellValue(int rowNum, int colNum, String value) {
+			if (rowNum != currRow) {
+				passRows(rowNum);
+				if (!pendingRows.isEmpty() && pendingRows.peek() == rowNum) {
+					pendingRows.poll();
+				}
+				currRow = rowNum;
+			}
+			if (colNum >= values.length) {
+				values = Arrays.copyOf(values, Math.max(colNum + 1, values.length * 2));
+			}
+			values[colNum] = value;
+			width = Math.max(width, colNum + 1);
+		}
+
+		/**
+		 * Passes the current row and the defined rows without cells before the given row on.
+		 */
+		private void passRows(int rowNum) {
+			if (currRow >= 0) {
+				handler.row(currRow, Arrays.copyOf(values, width));
+				Arrays.fill(values, 0, width, null);
+				width = 0;
+				currRow = -1;
+			}
+			while (!pendingRows.isEmpty() && pendingRows.peek() < rowNum) {
+				handler.row(pendingRows.poll(), new String[0]);
+			}
+		}
+
+		/**
+		 * Passes the remaining rows on, after the records were processed.
+		 */
+		private void finish() {
+			passRows(Integer.MAX_VALUE);
+		}
+	}
+}
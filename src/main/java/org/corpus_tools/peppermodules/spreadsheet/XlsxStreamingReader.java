@@ -0,0 +1,252 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * A {@link SpreadsheetReader} for xlsx files, which is based on the XSSF event model of POI. The
+ * sheet XML is parsed with SAX and each row is passed on as soon as its end is reached, instead of
+ * building the XSSF object model of the whole workbook. Only the cells of the current row are kept.
+ */
+public class XlsxStreamingReader implements SpreadsheetReader {
+
+	private static final String MERGE_CELL_ELEMENT = "mergeCell";
+	private static final String MERGE_CELL_REF_ATTRIBUTE = "ref";
+
+	private final OPCPackage pkg;
+	private final XSSFReader xssfReader;
+	private final ReadOnlySharedStringsTable strings;
+	private final StylesTable styles;
+	private final List<String> sheetNames;
+
+	public XlsxStreamingReader(File excelFile) throws IOException {
+		try {
+			pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+		} catch (OpenXML4JException e) {
+			throw new IOException("Could not open package '" + excelFile + "'.", e);
+		}
+		try {
+			xssfReader = new XSSFReader(pkg);
+			strings = new ReadOnlySharedStringsTable(pkg);
+			styles = xssfReader.getStylesTable();
+			// the names are read once, so that the reader is not modified by the threads reading sheets
+			List<String> names = new ArrayList<>();
+			XSSFReader.SheetIterator sheets = getSheetIterator();
+			while (sheets.hasNext()) {
+				try (InputStream sheetStream = sheets.next()) {
+					names.add(sheets.getSheetName());
+				}
+			}
+			sheetNames = Collections.unmodifiableList(names);
+		} catch (OpenXML4JException | SAXException | IOException e) {
+			pkg.revert();
+			throw new IOException("Could not read workbook '" + excelFile + "'.", e);
+		}
+	}
+
+	@Override
+	public List<String> getSheetNames() {
+		return sheetNames;
+	}
+
+	@Override
+	public SheetTable getSheet(int index) throws IOException {
+		return getSheet(index, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Stops parsing the sheet XML at the first row following the given number of rows, the merged
+	 * regions at the end of the sheet are not read in that case.
+	 */
+	@Override
+	public SheetTable getSheet(int index, int maxRows) throws IOException {
+		List<String> names = getSheetNames();
+		if (index < 0 || index >= names.size()) {
+			return null;
+		}
+		BufferedSheetTable table = new BufferedSheetTable(names.get(index));
+		readSheet(index, table, maxRows);
+		return table;
+	}
+
+	@Override
+	public boolean readSheet(int index, SheetRowHandler handler) throws IOException {
+		return readSheet(index, handler, Integer.MAX_VALUE);
+	}
+
+	private boolean readSheet(int index, SheetRowHandler handler, int maxRows) throws IOException {
+		XSSFReader.SheetIterator sheets = getSheetIterator();
+		int currSheet = 0;
+		while (sheets.hasNext()) {
+			try (InputStream sheetStream = sheets.next()) {
+				if (currSheet == index) {
+					parseSheet(sheetStream, sheets.getSheetName(), handler, maxRows);
+					return true;
+				}
+			}
+			currSheet++;
+		}
+		return false;
+	}
+
+	private XSSFReader.SheetIterator getSheetIterator() throws IOException {
+		try {
+			return (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+		} catch (OpenXML4JException e) {
+			throw new IOException("Could not read the sheets of the workbook.", e);
+		}
+	}
+
+	private void parseSheet(InputStream sheetStream, String sheetName, SheetRowHandler handler, int maxRows)
+			throws IOException {
+		try {
+			XMLReader parser = XMLHelper.newXMLReader();
+			parser.setContentHandler(new MergedRegionAwareSheetHandler(handler, maxRows));
+			parser.parse(new InputSource(sheetStream));
+		} catch (EnoughRowsException e) {
+			// the rest of the sheet is not needed
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException("Could not parse sheet '" + sheetName + "'.", e);
+		}
+	}
+
+	/**
+	 * Each sheet is parsed from its own stream of the package, the shared strings and styles are only
+	 * read.
+	 */
+	@Override
+	public boolean isConcurrent() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		pkg.revert();
+	}
+
+	/**
+	 * The {@link XSSFSheetXMLHandler} only reports the cells of the sheet, the merged regions are
+	 * collected from the <code>mergeCells</code> element following the sheet data.
+	 */
+	private class MergedRegionAwareSheetHandler extends XSSFSheetXMLHandler {
+		private final SheetRowHandler handler;
+
+		private MergedRegionAwareSheetHandler(SheetRowHandler handler, int maxRows) {
+			// report formulas instead of cached results, as the user model does without an evaluator
+			super(styles, strings, new RowContentsHandler(handler, maxRows), new DataFormatter(), true);
+			this.handler = handler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			if (MERGE_CELL_ELEMENT.equals(localName)) {
+				String ref = attributes.getValue(MERGE_CELL_REF_ATTRIBUTE);
+				if (ref != null) {
+					handler.mergedRegion(CellRangeAddress.valueOf(ref));
+				}
+			}
+			super.startElement(uri, localName, qName, attributes);
+		}
+	}
+
+	/**
+	 * Thrown to stop parsing the sheet XML as soon as the requested rows are read.
+	 */
+	private static class EnoughRowsException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private EnoughRowsException() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Collects the formatted cell values reported by the {@link XSSFSheetXMLHandler} for the current
+	 * row and passes the row to the {@link SheetRowHandler} at its end.
+	 */
+	private static class RowContentsHandler implements SheetContentsHandler {
+		private final SheetRowHandler handler;
+		private final int maxRows;
+		private int currRow = -1;
+		private int currCol = -1;
+		/** the values of the current row, reused for all rows */
+		private String[] values = new String[16];
+		/** index of the last cell of the current row plus one */
+		private int width = 0;
+
+		private RowContentsHandler(SheetRowHandler handler, int maxRows) {
+			this.handler = handler;
+			this.maxRows = maxRows;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			if (rowNum >= maxRows) {
+				throw new EnoughRowsException();
+			}
+			currRow = rowNum;
+			currCol = -1;
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			handler.row(currRow, Arrays.copyOf(values, width));
+			Arrays.fill(values, 0, width, null);
+			width = 0;
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			// the cell reference is optional in the file format
+			currCol = cellReference == null ? currCol + 1 : new CellReference(cellReference).getCol();
+			if (currCol >= values.length) {
+				values = Arrays.copyOf(values, Math.max(currCol + 1, values.length * 2));
+			}
+			values[currCol] = formattedValue;
+			width = Math.max(width, currCol + 1);
+		}
+	}
+}
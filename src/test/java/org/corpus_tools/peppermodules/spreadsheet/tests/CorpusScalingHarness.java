@@ -0,0 +1,397 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.spreadsheet.tests;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.corpus_tools.pepper.testFramework.PepperTestUtil;
+import org.corpus_tools.peppermodules.spreadsheet.Salt2SpreadsheetMapper;
+import org.corpus_tools.peppermodules.spreadsheet.Spreadsheet2SaltMapper;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetImporterProperties;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Scales the bundled sample corpora to large documents and runs import and export round trips on
+ * them, to find super-linear runtime or memory behavior before a production job does. It is not run
+ * by the default build, but with the Maven profile 'scaling', which sets the heap limit of the test
+ * JVM (see README). The sizes and budgets are read from system properties:
+ * <ul>
+ * <li>scaling.seeds: comma separated workbooks in the test resources, which are replicated</li>
+ * <li>scaling.rows: rows of each document in the largest step</li>
+ * <li>scaling.steps: number of steps, each one doubling the rows of the one before</li>
+ * <li>scaling.documents: documents imported and exported in each step</li>
+ * <li>scaling.streaming: if true, the documents are imported with the streaming reader and exported
+ * through a streaming workbook</li>
+ * <li>scaling.minRowsPerSecond: minimal throughput of import and export in each step</li>
+ * <li>scaling.maxSlowdown: maximal factor by which the throughput of the largest step may fall
+ * below the throughput of the smallest one</li>
+ * <li>scaling.maxHeapMb: maximal peak heap usage of each step, by default 90% of the heap limit</li>
+ * <li>scaling.report: path of the JSON report</li>
+ * </ul>
+ * Seeds which are missing or cannot be read are skipped and marked as such in the report.
+ */
+public class CorpusScalingHarness {
+
+	private static final Pattern PRIMARY_TEXT_REFERENCE = Pattern.compile("\\[([^\\]]+)\\]");
+
+	private final String[] seeds = StringUtils.split(
+			System.getProperty("scaling.seeds", "sample.xlsx,ContrafaytKreuterbuch_1532.xlsx"), ", ");
+	private final int rows = Integer.getInteger("scaling.rows", 200000);
+	private final int steps = Integer.getInteger("scaling.steps", 3);
+	private final int documents = Integer.getInteger("scaling.documents", 4);
+	private final boolean streaming = Boolean.getBoolean("scaling.streaming");
+	private final double minRowsPerSecond = Double
+			.parseDouble(System.getProperty("scaling.minRowsPerSecond", "2000"));
+	private final double maxSlowdown = Double.parseDouble(System.getProperty("scaling.maxSlowdown", "2.0"));
+	private final long maxHeapMb = Long.getLong("scaling.maxHeapMb",
+			Runtime.getRuntime().maxMemory() * 9 / 10 / (1024 * 1024));
+	private final File reportFile = new File(System.getProperty("scaling.report", "target/scaling-report.json"));
+
+	/**
+	 * The corpus sheet of a seed workbook.
+	 */
+	private static class Seed {
+		final String name;
+		String[] header;
+		final List<String[]> dataRows = new ArrayList<>();
+		final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+		String skipped;
+
+		Seed(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @return the primary texts referenced by the annotation tiers, 'tok' if there are none
+		 */
+		String getPrimaryTexts() {
+			Set<String> primaryTexts = new LinkedHashSet<>();
+			for (String name : header) {
+				Matcher matcher = PRIMARY_TEXT_REFERENCE.matcher(name == null ? "" : name);
+				if (matcher.find()) {
+					primaryTexts.add(matcher.group(1).trim());
+				}
+			}
+			return primaryTexts.isEmpty() ? "tok" : String.join(", ", primaryTexts);
+		}
+	}
+
+	/**
+	 * The measurements of a single step.
+	 */
+	private static class StepResult {
+		long rows;
+		int documents;
+		double importRowsPerSecond;
+		double exportRowsPerSecond;
+		long peakHeapMb;
+	}
+
+	@Test
+	public void testScaling() throws IOException {
+		List<Seed> loadedSeeds = new ArrayList<>();
+		for (String name : seeds) {
+			loadedSeeds.add(loadSeed(name));
+		}
+		Assume.assumeTrue("None of the seed workbooks could be read.",
+				loadedSeeds.stream().anyMatch(seed -> seed.skipped == null));
+
+		List<List<StepResult>> results = new ArrayList<>();
+		List<String> failures = new ArrayList<>();
+		File workDir = Files.createTempDirectory("corpusScaling").toFile();
+		try {
+			for (Seed seed : loadedSeeds) {
+				List<StepResult> seedResults = new ArrayList<>();
+				results.add(seedResults);
+				if (seed.skipped != null) {
+					continue;
+				}
+				for (int step = steps - 1; step >= 0; step--) {
+					StepResult result = runStep(seed, Math.max(rows >> step, 1), workDir);
+					seedResults.add(result);
+					checkBudgets(seed, result, failures);
+				}
+				StepResult smallest = seedResults.get(0);
+				StepResult largest = seedResults.get(seedResults.size() - 1);
+				if (largest.importRowsPerSecond * maxSlowdown < smallest.importRowsPerSecond) {
+					failures.add(String.format(Locale.ROOT, "%s: import throughput drops from %.0f to %.0f rows/s",
+							seed.name, smallest.importRowsPerSecond, largest.importRowsPerSecond));
+				}
+				if (largest.exportRowsPerSecond * maxSlowdown < smallest.exportRowsPerSecond) {
+					failures.add(String.format(Locale.ROOT, "%s: export throughput drops from %.0f to %.0f rows/s",
+							seed.name, smallest.exportRowsPerSecond, largest.exportRowsPerSecond));
+				}
+			}
+		} finally {
+			for (File file : workDir.listFiles()) {
+				file.delete();
+			}
+			workDir.delete();
+		}
+		writeReport(loadedSeeds, results, failures);
+		assertTrue(String.join("\n", failures), failures.isEmpty());
+	}
+
+	private Seed loadSeed(String name) {
+		Seed seed = new Seed(name);
+		File file = new File(PepperTestUtil.getTestResources(), name);
+		if (!file.isFile() || file.length() == 0) {
+			seed.skipped = "missing or empty file";
+			return seed;
+		}
+		DataFormatter formatter = new DataFormatter();
+		try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+			Sheet sheet = workbook.getSheetAt(0);
+			Row headerRow = sheet.getRow(0);
+			if (headerRow == null || sheet.getLastRowNum() < 1) {
+				seed.skipped = "no corpus rows";
+				return seed;
+			}
+			int columns = headerRow.getLastCellNum();
+			seed.header = readRow(headerRow, columns, formatter);
+			for (int rowNum = 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
+				seed.dataRows.add(readRow(sheet.getRow(rowNum), columns, formatter));
+			}
+			for (CellRangeAddress region : sheet.getMergedRegions()) {
+				if (region.getFirstRow() > 0) {
+					seed.mergedRegions.add(region);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			seed.skipped = "cannot be read: " + e.getMessage();
+		}
+		return seed;
+	}
+
+	private static String[] readRow(Row row, int columns, DataFormatter formatter) {
+		String[] values = new String[columns];
+		for (int col = 0; row != null && col < columns; col++) {
+			Cell cell = row.getCell(col);
+			values[col] = cell == null ? null : formatter.formatCellValue(cell);
+		}
+		return values;
+	}
+
+	/**
+	 * Writes a corpus sheet with the given number of rows by repeating the rows and merged regions
+	 * of the seed.
+	 */
+	private static void writeScaledWorkbook(Seed seed, int rows, File file) throws IOException {
+		int blockSize = seed.dataRows.size();
+		try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+			SXSSFSheet sheet = workbook.createSheet("corpus");
+			writeRow(sheet.createRow(0), seed.header);
+			for (int rowNum = 1; rowNum <= rows; rowNum++) {
+				writeRow(sheet.createRow(rowNum), seed.dataRows.get((rowNum - 1) % blockSize));
+			}
+			for (int offset = 0; offset < rows; offset += blockSize) {
+				for (CellRangeAddress region : seed.mergedRegions) {
+					if (region.getLastRow() + offset <= rows) {
+						// the copies of a region never overlap, so the check of the regions is not needed
+						sheet.addMergedRegionUnsafe(new CellRangeAddress(region.getFirstRow() + offset,
+								region.getLastRow() + offset, region.getFirstColumn(), region.getLastColumn()));
+					}
+				}
+			}
+			try (OutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+			workbook.dispose();
+		}
+	}
+
+	private static void writeRow(Row row, String[] values) {
+		for (int col = 0; col < values.length; col++) {
+			if (values[col] != null) {
+				row.createCell(col).setCellValue(values[col]);
+			}
+		}
+	}
+
+	private StepResult runStep(Seed seed, int stepRows, File workDir) throws IOException {
+		File workbookFile = new File(workDir, "scaled.xlsx");
+		writeScaledWorkbook(seed, stepRows, workbookFile);
+		SpreadsheetImporterProperties importProps = new SpreadsheetImporterProperties();
+		importProps.setPropertyValue(SpreadsheetImporterProperties.PROP_PRIMARY_TEXT,
+				System.getProperty("scaling.primText", seed.getPrimaryTexts()));
+		importProps.setPropertyValue(SpreadsheetImporterProperties.PROP_META_ANNO, false);
+		importProps.setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, streaming);
+		SpreadsheetExporterProperties exportProps = new SpreadsheetExporterProperties();
+		exportProps.setPropertyValue(SpreadsheetExporterProperties.PROP_STREAMING, streaming);
+
+		StepResult result = new StepResult();
+		result.rows = stepRows;
+		result.documents = documents;
+		System.gc();
+		List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				heapPools.add(pool);
+			}
+		}
+		long importNanos = 0;
+		long exportNanos = 0;
+		for (int doc = 0; doc < documents; doc++) {
+			SDocument document = SaltFactory.createSDocument();
+			document.setName(seed.name.replaceAll("\\.[^.]*$", "") + "_" + doc);
+			document.setDocumentGraph(SaltFactory.createSDocumentGraph());
+
+			long start = System.nanoTime();
+			Spreadsheet2SaltMapper importer = new Spreadsheet2SaltMapper();
+			importer.setProperties(importProps);
+			importer.setDocument(document);
+			importer.setResourceURI(URI.createFileURI(workbookFile.getAbsolutePath()));
+			importer.mapSDocument();
+			importNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Salt2SpreadsheetMapper exporter = new Salt2SpreadsheetMapper();
+			exporter.setProperties(exportProps);
+			exporter.setDocument(document);
+			exporter.setResourceURI(URI.createFileURI(new File(workDir, "export.xlsx").getAbsolutePath()));
+			exporter.mapSDocument();
+			exportNanos += System.nanoTime() - start;
+		}
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+		result.peakHeapMb = peakHeap / (1024 * 1024);
+		result.importRowsPerSecond = toRowsPerSecond((long) stepRows * documents, importNanos);
+		result.exportRowsPerSecond = toRowsPerSecond((long) stepRows * documents, exportNanos);
+		return result;
+	}
+
+	private static double toRowsPerSecond(long rows, long nanos) {
+		return nanos == 0 ? Double.POSITIVE_INFINITY : rows * 1e9 / nanos;
+	}
+
+	private void checkBudgets(Seed seed, StepResult result, List<String> failures) {
+		if (result.importRowsPerSecond < minRowsPerSecond) {
+			failures.add(String.format(Locale.ROOT, "%s, %d rows: import with %.0f rows/s below %.0f rows/s",
+					seed.name, result.rows, result.importRowsPerSecond, minRowsPerSecond));
+		}
+		if (result.exportRowsPerSecond < minRowsPerSecond) {
+			failures.add(String.format(Locale.ROOT, "%s, %d rows: export with %.0f rows/s below %.0f rows/s",
+					seed.name, result.rows, result.exportRowsPerSecond, minRowsPerSecond));
+		}
+		if (result.peakHeapMb > maxHeapMb) {
+			failures.add(String.format(Locale.ROOT, "%s, %d rows: peak heap of %d MB above %d MB", seed.name,
+					result.rows, result.peakHeapMb, maxHeapMb));
+		}
+	}
+
+	private void writeReport(List<Seed> loadedSeeds, List<List<StepResult>> results, List<String> failures)
+			throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"maxMemoryMb\": ").append(Runtime.getRuntime().maxMemory() / (1024 * 1024)).append(",\n");
+		json.append("  \"maxHeapMb\": ").append(maxHeapMb).append(",\n");
+		json.append("  \"minRowsPerSecond\": ").append(format(minRowsPerSecond)).append(",\n");
+		json.append("  \"maxSlowdown\": ").append(format(maxSlowdown)).append(",\n");
+		json.append("  \"streaming\": ").append(streaming).append(",\n");
+		json.append("  \"seeds\": [");
+		for (int i = 0; i < loadedSeeds.size(); i++) {
+			Seed seed = loadedSeeds.get(i);
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    {\"name\": ").append(quote(seed.name));
+			if (seed.skipped != null) {
+				json.append(", \"skipped\": ").append(quote(seed.skipped)).append("}");
+				continue;
+			}
+			json.append(", \"seedRows\": ").append(seed.dataRows.size()).append(", \"steps\": [");
+			List<StepResult> seedResults = results.get(i);
+			for (int j = 0; j < seedResults.size(); j++) {
+				StepResult result = seedResults.get(j);
+				json.append(j == 0 ? "\n" : ",\n");
+				json.append("      {\"rows\": ").append(result.rows);
+				json.append(", \"documents\": ").append(result.documents);
+				json.append(", \"importRowsPerSecond\": ").append(format(result.importRowsPerSecond));
+				json.append(", \"exportRowsPerSecond\": ").append(format(result.exportRowsPerSecond));
+				json.append(", \"peakHeapMb\": ").append(result.peakHeapMb).append("}");
+			}
+			json.append("\n    ]}");
+		}
+		json.append("\n  ],\n");
+		json.append("  \"failures\": [");
+		for (int i = 0; i < failures.size(); i++) {
+			json.append(i == 0 ? "" : ", ").append(quote(failures.get(i)));
+		}
+		json.append("]\n}\n");
+		File parent = reportFile.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8)) {
+			writer.write(json.toString());
+		}
+	}
+
+	private static String format(double value) {
+		return Double.isInfinite(value) ? "null" : String.format(Locale.ROOT, "%.1f", value);
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
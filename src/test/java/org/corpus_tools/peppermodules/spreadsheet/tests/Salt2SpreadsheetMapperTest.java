@@ -17,10 +17,13 @@
  */
 package org.corpus_tools.peppermodules.spreadsheet.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -34,6 +37,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -42,12 +46,17 @@ import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.assertj.core.groups.Tuple;
 import org.corpus_tools.pepper.testFramework.PepperTestUtil;
+import org.corpus_tools.peppermodules.spreadsheet.DelimitedTextWriter;
 import org.corpus_tools.peppermodules.spreadsheet.Salt2SpreadsheetMapper;
+import org.corpus_tools.peppermodules.spreadsheet.SheetGrid;
 import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.FormatValue;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetExporterProperties.MergedCellsValue;
 import org.corpus_tools.salt.SALT_TYPE;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SOrderRelation;
 import org.corpus_tools.salt.common.SPointingRelation;
 import org.corpus_tools.salt.common.STextualDS;
 import org.corpus_tools.salt.common.STextualRelation;
@@ -63,6 +72,7 @@ public class Salt2SpreadsheetMapperTest {
 	
 	private static final String SAMPLE_FILE_NAME = "exporter_example.xlsx";
 	private static final String TEST_OUT_FILE_NAME = "_test.xlsx";
+	private static final String TEST_OUT_CSV_FILE_NAME = "_test.csv";
 	
 	private Salt2SpreadsheetMapper fixture = null;
 	
@@ -77,6 +87,9 @@ public class Salt2SpreadsheetMapperTest {
 	
 	private Workbook mappingResult = null;
 	
+	/** value of the property {@link SpreadsheetExporterProperties#PROP_STREAMING} */
+	private boolean streaming = false;
+	
 	/**
 	 * This method runs a conversion of the given {@link SDocumentGraph} Object. 
 	 * @param documentGraph The {@link SDocumentGraph} to be exported.
@@ -92,6 +105,7 @@ public class Salt2SpreadsheetMapperTest {
 		mapper.setResourceURI( URI.createFileURI(targetPath.toString()) );
 		SpreadsheetExporterProperties properties = new SpreadsheetExporterProperties();
 		properties.setPropertyValue(properties.PROP_COL_ORDER, "TOK::doc, TOK::sent, TOK_A::pos, TOK_B::pos, TOK_A::lemma, TOK_B::lemma");
+		properties.setPropertyValue(SpreadsheetExporterProperties.PROP_STREAMING, streaming);
 		mapper.setProperties(properties);
 		SDocument doc = SaltFactory.createSDocument();
 		doc.setName(TestGraph.DOC_NAME);
@@ -102,6 +116,68 @@ public class Salt2SpreadsheetMapperTest {
 		return WorkbookFactory.create(targetPath.toFile());
 	}
 	
+	/**
+	 * Exports the test graph to a csv file.
+	 * @param mergedCells policy for the cells of merged regions
+	 * @return the lines of the csv file
+	 * @throws IOException
+	 */
+	private List<String> mapDelimitedText(MergedCellsValue mergedCells) throws IOException {
+		return mapDelimitedText(TestGraph.getGraph(), mergedCells);
+	}
+	
+	/**
+	 * Exports a graph to a csv file.
+	 * @param documentGraph
+	 * @param mergedCells policy for the cells of merged regions
+	 * @return the lines of the csv file
+	 * @throws IOException
+	 */
+	private List<String> mapDelimitedText(SDocumentGraph documentGraph, MergedCellsValue mergedCells) throws IOException {
+		Salt2SpreadsheetMapper mapper = new Salt2SpreadsheetMapper();
+		Path targetPath = Paths.get(PepperTestUtil.getTempPath_static("exporter_test").toString(), TEST_OUT_CSV_FILE_NAME);
+		targetPath.toFile().getParentFile().mkdirs();
+		mapper.setResourceURI( URI.createFileURI(targetPath.toString()) );
+		SpreadsheetExporterProperties properties = new SpreadsheetExporterProperties();
+		properties.setPropertyValue(properties.PROP_COL_ORDER, "TOK::doc, TOK::sent, TOK_A::pos, TOK_B::pos, TOK_A::lemma, TOK_B::lemma");
+		properties.setPropertyValue(SpreadsheetExporterProperties.PROP_FORMAT, FormatValue.csv);
+		properties.setPropertyValue(SpreadsheetExporterProperties.PROP_MERGED_CELLS, mergedCells);
+		mapper.setProperties(properties);
+		SDocument doc = SaltFactory.createSDocument();
+		doc.setName(TestGraph.DOC_NAME);
+		doc.setDocumentGraph(documentGraph);
+		mapper.setDocument(doc);
+		mapper.mapSDocument();
+		assertTrue("Exporter's output cannot be found on disk.", Files.exists(targetPath));
+		return Files.readAllLines(targetPath, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Compares the csv export with the workbook export, the cells of merged regions below their first
+	 * row are expected to hold the given value or the value of the region, if it is null.
+	 */
+	private void testDelimitedText(MergedCellsValue mergedCells, String coveredValue) throws EncryptedDocumentException, InvalidFormatException, IOException {
+		Sheet sheet = getMappingResult().getSheetAt(0);
+		List<String> lines = mapDelimitedText(mergedCells);
+		assertEquals(sheet.getLastRowNum() + 1, lines.size());
+		int columnCount = sheet.getRow(0).getLastCellNum();
+		for (int r = 0; r < lines.size(); r++) {
+			String[] fields = lines.get(r).split(",", -1);
+			assertEquals("Number of fields @ " + (r + 1), columnCount, fields.length);
+			Row row = sheet.getRow(r);
+			for (int c = 0; c < fields.length; c++) {
+				Cell cell = row == null ? null : row.getCell(c);
+				String value = cell == null ? "" : cell.getStringCellValue();
+				for (CellRangeAddress region : sheet.getMergedRegions()) {
+					if (region.isInRange(r, c) && r > region.getFirstRow()) {
+						value = coveredValue != null ? coveredValue : sheet.getRow(region.getFirstRow()).getCell(c).getStringCellValue();
+					}
+				}
+				assertEquals("Values are unequal @ " + (r + 1) + " " + c, value, fields[c]);
+			}
+		}
+	}
+	
 	private Workbook getMappingResult() throws EncryptedDocumentException, InvalidFormatException, IOException {
 		if (mappingResult == null) {
 			SDocumentGraph fixGraph = TestGraph.getGraph();
@@ -160,6 +236,114 @@ public class Salt2SpreadsheetMapperTest {
 		testColumns(3, 4);
 	}
 	
+	@Test
+	public void testTokenizationsStreaming() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		streaming = true;
+		testTokenizations();
+	}
+	
+	@Test
+	public void testTokenAnnotationsStreaming() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		streaming = true;
+		testTokenAnnotations();
+	}
+	
+	@Test
+	public void testSpanAnnotationsStreaming() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		streaming = true;
+		testSpanAnnotations();
+	}
+	
+	/**
+	 * Two orderings of a long chain of tokens, their relations are added from the end of the chain
+	 * on. Tracing the head of such a chain backwards recursively overflows the stack.
+	 */
+	@Test
+	public void testLongOrderChains() throws IOException {
+		final int length = 50000;
+		SDocumentGraph docGraph = SaltFactory.createSDocumentGraph();
+		STextualDS ds = docGraph.createTextualDS(StringUtils.repeat("a ", length));
+		SToken[] tokens = new SToken[length];
+		for (int i = 0; i < length; i++) {
+			tokens[i] = docGraph.createToken(ds, 2 * i, 2 * i + 1);
+		}
+		for (String orderName : new String[]{"tok_a", "tok_b"}) {
+			for (int i = length - 1; i > 0; i--) {
+				SOrderRelation orderRel = SaltFactory.createSOrderRelation();
+				orderRel.setSource(tokens[i - 1]);
+				orderRel.setTarget(tokens[i]);
+				orderRel.setType(orderName);
+				docGraph.addRelation(orderRel);
+			}
+		}
+		List<String> lines = mapDelimitedText(docGraph, MergedCellsValue.blank);
+		assertEquals(length + 1, lines.size());
+		String[] header = lines.get(0).split(",", -1);
+		assertEquals(new HashSet<>(Arrays.asList("tok_a", "tok_b")), new HashSet<>(Arrays.asList(header[0], header[1])));
+		for (int r = 1; r < lines.size(); r++) {
+			assertTrue("Tokens are missing @ " + (r + 1), lines.get(r).startsWith("a,a,"));
+		}
+	}
+	
+	@Test
+	public void testDelimitedTextBlank() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		testDelimitedText(MergedCellsValue.blank, "");
+	}
+	
+	@Test
+	public void testDelimitedTextRepeat() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		testDelimitedText(MergedCellsValue.repeat, null);
+	}
+	
+	@Test
+	public void testDelimitedTextMarker() throws EncryptedDocumentException, InvalidFormatException, IOException {
+		testDelimitedText(MergedCellsValue.marker, "^");
+	}
+	
+	/**
+	 * Rows without any cell are written as records with an empty field for each column.
+	 */
+	@Test
+	public void testDelimitedTextGapRows() throws IOException {
+		SheetGrid grid = new SheetGrid();
+		grid.add(0, 0, 1, "a");
+		grid.add(0, 1, 1, "b");
+		grid.add(3, 1, 1, "c");
+		StringWriter out = new StringWriter();
+		grid.visit(new DelimitedTextWriter(out, false, grid.getColumnCount(), MergedCellsValue.blank, "^"));
+		String[] lines = out.toString().split("\n", -1);
+		assertArrayEquals(new String[]{"a,b", ",", ",", ",c", ""}, lines);
+		for (int r = 0; r < lines.length - 1; r++) {
+			assertEquals("Number of fields @ " + (r + 1), grid.getColumnCount(), lines[r].split(",", -1).length);
+		}
+	}
+	
+	/**
+	 * Values equal to the continuation marker are quoted, the marker of covered cells is not.
+	 */
+	@Test
+	public void testDelimitedTextMarkerValue() throws IOException {
+		SheetGrid grid = new SheetGrid();
+		grid.add(0, 0, 2, "a");
+		grid.add(0, 1, 1, "^");
+		grid.add(1, 1, 1, "b");
+		StringWriter out = new StringWriter();
+		grid.visit(new DelimitedTextWriter(out, false, grid.getColumnCount(), MergedCellsValue.marker, "^"));
+		assertEquals("a,\"^\"\n^,b\n", out.toString());
+	}
+	
+	/**
+	 * Without a continuation marker covered cells hold the default marker.
+	 */
+	@Test
+	public void testDelimitedTextNullMarker() throws IOException {
+		SheetGrid grid = new SheetGrid();
+		grid.add(0, 0, 2, "a");
+		StringWriter out = new StringWriter();
+		grid.visit(new DelimitedTextWriter(out, false, grid.getColumnCount(), MergedCellsValue.marker, null));
+		assertEquals("a\n^\n", out.toString());
+	}
+	
 	private static class TestGraph {		
 		private static TestGraph instance;
 		private static SDocumentGraph instanceGraph;
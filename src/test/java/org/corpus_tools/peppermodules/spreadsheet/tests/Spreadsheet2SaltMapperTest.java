@@ -18,14 +18,20 @@
 package org.corpus_tools.peppermodules.spreadsheet.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +39,7 @@ import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
@@ -42,8 +49,12 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
 import org.corpus_tools.pepper.testFramework.PepperTestUtil;
+import org.corpus_tools.peppermodules.spreadsheet.ImportCache;
+import org.corpus_tools.peppermodules.spreadsheet.ImportMetrics;
+import org.corpus_tools.peppermodules.spreadsheet.SharedSpreadsheets;
 import org.corpus_tools.peppermodules.spreadsheet.Spreadsheet2SaltMapper;
 import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetImporterProperties;
+import org.corpus_tools.peppermodules.spreadsheet.StringPool;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SSpan;
@@ -183,6 +194,282 @@ public class Spreadsheet2SaltMapperTest {
 	}
 	
 
+	/**
+	 * test that the streaming import of xlsx files creates the same spans as the default import.
+	 */
+	@Test
+	public void testSimpleSpanStreaming() throws FileNotFoundException, UnsupportedEncodingException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testSimpleSpan();
+	}
+	
+	/**
+	 * test that the streaming import of xlsx files resolves merged cells of primary texts and
+	 * annotations as the default import does.
+	 */
+	@Test
+	public void testAnnotationsStreaming() throws ParserConfigurationException, SAXException, IOException, XMLStreamException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testAnnotations();
+	}
+	
+	/**
+	 * test that computing the spans of the annotation tiers in parallel creates the same spans in the
+	 * same order.
+	 */
+	@Test
+	public void testAnnotationsParallel() throws ParserConfigurationException, SAXException, IOException, XMLStreamException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_PARALLEL_ANNOTATIONS, true);
+		testAnnotations();
+	}
+	
+	/**
+	 * test that the metrics of a document count the created tokens and spans.
+	 */
+	@Test
+	public void testAnnotationsMetrics() throws ParserConfigurationException, SAXException, IOException, XMLStreamException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_METRICS, true);
+		testAnnotations();
+		ImportMetrics metrics = getFixture().getMetrics();
+		assertTrue(metrics.isEnabled());
+		assertEquals(1, metrics.getCount(ImportMetrics.Counter.DOCUMENTS));
+		assertEquals(getFixture().getDocument().getDocumentGraph().getTokens().size(), metrics.getCount(ImportMetrics.Counter.TOKENS));
+		assertEquals(getFixture().getDocument().getDocumentGraph().getSpans().size(), metrics.getCount(ImportMetrics.Counter.SPANS));
+		assertTrue(metrics.getCount(ImportMetrics.Counter.MERGED_REGIONS) > 0);
+	}
+	
+	@Test
+	public void testAnnotationsStringPool() throws ParserConfigurationException, SAXException, IOException, XMLStreamException {
+		StringPool stringPool = new StringPool(1000);
+		getFixture().setStringPool(stringPool);
+		testAnnotations();
+		assertTrue(stringPool.size() > 0);
+		for (SSpan span : getFixture().getDocument().getDocumentGraph().getSpans()) {
+			for (SAnnotation annotation : span.getAnnotations()) {
+				// the annotations hold the pooled instances
+				assertSame(stringPool.intern(annotation.getValue_STEXT()), annotation.getValue());
+			}
+		}
+	}
+	
+	@Test
+	public void testAnnotationsCache() throws ParserConfigurationException, SAXException, IOException, XMLStreamException {
+		File cacheDir = new File(outFile.getParentFile(), "cache" + System.currentTimeMillis());
+		ImportCache cache = new ImportCache(cacheDir, 1024L * 1024L * 1024L);
+		try {
+			getFixture().setImportCache(cache);
+			testAnnotations();
+			assertEquals(0, cache.getHits());
+			assertEquals(1, cache.getMisses());
+			
+			// a second import of the unchanged file is loaded from the cache
+			Spreadsheet2SaltMapper cachedMapper = new Spreadsheet2SaltMapper();
+			cachedMapper.setDocument(SaltFactory.createSDocument());
+			cachedMapper.getDocument().setName(getFixture().getDocument().getName());
+			cachedMapper.setProperties(getFixture().getProperties());
+			cachedMapper.setImportCache(cache);
+			cachedMapper.setResourceURI(URI.createFileURI(outFile.getAbsolutePath()));
+			cachedMapper.mapSDocument();
+			assertEquals(1, cache.getHits());
+			SDocumentGraph imported = getFixture().getDocument().getDocumentGraph();
+			SDocumentGraph cached = cachedMapper.getDocument().getDocumentGraph();
+			assertEquals(imported.getTextualDSs().size(), cached.getTextualDSs().size());
+			assertEquals(imported.getTokens().size(), cached.getTokens().size());
+			assertEquals(imported.getSpans().size(), cached.getSpans().size());
+			assertEquals(imported.getRelations().size(), cached.getRelations().size());
+			
+			// other properties lead to another key
+			getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_ADD_ORDER_RELATION, false);
+			cachedMapper.mapSDocument();
+			assertEquals(1, cache.getHits());
+			assertEquals(2, cache.getMisses());
+		} finally {
+			FileUtils.deleteQuietly(cacheDir);
+		}
+	}
+	
+	/**
+	 * only the tier names and the meta data are imported in the metadata only mode
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testMetadataOnly() throws IOException {
+		createFourthXlsxSample();
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_CORPUS_SHEET, "fourthXlsxSample");
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_PRIMARY_TEXT, "tok, tok2");
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_META_ANNO, false);
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_METADATA_ONLY, true);
+		
+		start(getFixture(), outStream.toString());
+		
+		assertEquals(0, getFixture().getDocument().getDocumentGraph().getTextualDSs().size());
+		assertEquals(0, getFixture().getDocument().getDocumentGraph().getTokens().size());
+		assertEquals(0, getFixture().getDocument().getDocumentGraph().getSpans().size());
+		assertNotNull(getFixture().getDocument().getMetaAnnotation(Spreadsheet2SaltMapper.TIERS_NAMESPACE + "::" + Spreadsheet2SaltMapper.TIERS_NAME));
+		assertEquals("tok, anno1, tok2, anno2, lb", getFixture().getDocument().getMetaAnnotation(Spreadsheet2SaltMapper.TIERS_NAMESPACE + "::" + Spreadsheet2SaltMapper.TIERS_NAME).getValue_STEXT());
+	}
+	
+	@Test
+	public void testMetadataOnlyStreaming() throws IOException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testMetadataOnly();
+	}
+	
+	/**
+	 * each sheet of a workbook is imported as its own document by concurrent mappers, which share the
+	 * opened workbook
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testSheetsAsDocuments() throws Exception {
+		xlsxWb = new XSSFWorkbook();
+		String[][] sheets = { { "first sheet", "This", "is" }, { "second", "an", "example" } };
+		for (String[] sheetContent : sheets) {
+			Sheet sheet = xlsxWb.createSheet(sheetContent[0]);
+			sheet.createRow(0).createCell(0).setCellValue("tok");
+			sheet.createRow(1).createCell(0).setCellValue(sheetContent[1]);
+			sheet.createRow(2).createCell(0).setCellValue(sheetContent[2]);
+		}
+		xlsxWb.write(outStream);
+		outStream.close();
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_CORPUS_SHEET, "noSuchSheet");
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_META_ANNO, false);
+		
+		SharedSpreadsheets sharedSpreadsheets = new SharedSpreadsheets();
+		sharedSpreadsheets.register(outFile, sheets.length);
+		Spreadsheet2SaltMapper[] mappers = new Spreadsheet2SaltMapper[sheets.length];
+		Thread[] threads = new Thread[sheets.length];
+		for (int i = 0; i < sheets.length; i++) {
+			Spreadsheet2SaltMapper mapper = new Spreadsheet2SaltMapper();
+			mapper.setDocument(SaltFactory.createSDocument());
+			mapper.getDocument().setName(sheets[i][0]);
+			mapper.setProperties(getFixture().getProperties());
+			mapper.setSharedSpreadsheets(sharedSpreadsheets);
+			mapper.setResourceURI(URI.createFileURI(outFile.getAbsolutePath())
+					.appendFragment(URI.encodeFragment(sheets[i][0], false)));
+			mappers[i] = mapper;
+			threads[i] = new Thread(mapper::mapSDocument);
+			threads[i].start();
+		}
+		for (int i = 0; i < sheets.length; i++) {
+			threads[i].join();
+			assertEquals(sheets[i][0], mappers[i].getSheetName());
+			SDocumentGraph graph = mappers[i].getDocument().getDocumentGraph();
+			assertEquals(1, graph.getTextualDSs().size());
+			assertEquals(sheets[i][1] + " " + sheets[i][2], graph.getTextualDSs().get(0).getText());
+		}
+		// the workbook is closed after the last sheet
+		assertFalse(sharedSpreadsheets.isRegistered(outFile));
+	}
+	
+	@Test
+	public void testSheetsAsDocumentsStreaming() throws Exception {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testSheetsAsDocuments();
+	}
+	
+	@Test
+	public void testMultiplePrimDataXlsxStreaming() throws IOException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testMultiplePrimDataXlsx();
+	}
+	
+	@Test
+	public void testPrimDataTokenXlsStreaming() throws IOException {
+		getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_STREAMING, true);
+		testPrimDataTokenXls();
+	}
+	
+	/**
+	 * test the import of a csv file, continued cells have to be mapped like merged cells.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testAnnotationsCsv() throws IOException {
+		File csvFile = new File(outFile.getParentFile(), System.currentTimeMillis() + ".csv");
+		try {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8)) {
+				writer.write("tok,anno1[tok],tok2,anno2[tok2]\n"
+						+ "This,pron1,This,pron2\n"
+						+ "is,verb1,is,verb2\n"
+						+ "an,art1,an,art2\n"
+						+ "example,noun1,ex-,noun2\n"
+						+ "^,^,ample,^\n"
+						+ "\".\",punct1,.,punct2\n");
+			}
+			getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_PRIMARY_TEXT, "tok, tok2");
+			getFixture().setResourceURI(URI.createFileURI(csvFile.getAbsolutePath()));
+			getFixture().mapSDocument();
+		
+			SDocumentGraph g = getFixture().getDocument().getDocumentGraph();
+			assertEquals(2, g.getTextualDSs().size());
+			assertEquals("This is an example .", g.getTextualDSs().get(0).getText());
+			assertEquals("This is an ex- ample .", g.getTextualDSs().get(1).getText());
+			assertEquals(11, g.getTokens().size());
+			assertEquals(10, g.getSpans().size());
+			assertEquals("example", g.getText(g.getSpans().get(3)));
+			assertEquals("ex- ample", g.getText(g.getSpans().get(8)));
+		} finally {
+			FileUtils.deleteQuietly(csvFile);
+		}
+	}
+	
+	/**
+	 * a csv file is the only sheet of its document, whatever corpus sheet is configured
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCorpusSheetCsv() throws IOException {
+		File csvFile = new File(outFile.getParentFile(), System.currentTimeMillis() + ".csv");
+		try {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8)) {
+				writer.write("tok,anno1[tok]\n"
+						+ "This,pron1\n"
+						+ "is,verb1\n");
+			}
+			getFixture().getProps().setPropertyValue(SpreadsheetImporterProperties.PROP_CORPUS_SHEET, "corpus");
+			getFixture().setResourceURI(URI.createFileURI(csvFile.getAbsolutePath()));
+			getFixture().mapSDocument();
+			
+			SDocumentGraph g = getFixture().getDocument().getDocumentGraph();
+			assertEquals(1, g.getTextualDSs().size());
+			assertEquals("This is", g.getTextualDSs().get(0).getText());
+			assertEquals(2, g.getSpans().size());
+		} finally {
+			FileUtils.deleteQuietly(csvFile);
+		}
+	}
+	
+	/**
+	 * a quoted continuation marker is a value and does not continue the cell above
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testQuotedMarkerCsv() throws IOException {
+		File csvFile = new File(outFile.getParentFile(), System.currentTimeMillis() + ".csv");
+		try {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8)) {
+				writer.write("tok,anno1[tok]\n"
+						+ "This,pron1\n"
+						+ "is,\"^\"\n");
+			}
+			getFixture().setResourceURI(URI.createFileURI(csvFile.getAbsolutePath()));
+			getFixture().mapSDocument();
+			
+			SDocumentGraph g = getFixture().getDocument().getDocumentGraph();
+			assertEquals(2, g.getSpans().size());
+			assertEquals("is", g.getText(g.getSpans().get(1)));
+			assertEquals("^", g.getSpans().get(1).getAnnotation("anno1").getValue());
+		} finally {
+			FileUtils.deleteQuietly(csvFile);
+		}
+	}
+
 	private void createFirstXlsSample() throws IOException {
 
 		xlsWb = new HSSFWorkbook();
@@ -18,10 +18,28 @@
 package org.corpus_tools.peppermodules.spreadsheet.tests;
 
 
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.corpus_tools.pepper.common.FormatDesc;
 import org.corpus_tools.pepper.testFramework.PepperImporterTest;
 import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetImporter;
+import org.corpus_tools.peppermodules.spreadsheet.SpreadsheetImporterProperties;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
+import org.eclipse.emf.common.util.URI;
 import org.junit.Before;
+import org.junit.Test;
 
 /**
  * This is a dummy implementation of a JUnit test for testing the {@link SpreadsheetImporter} class.
@@ -54,6 +72,14 @@ public class SpreadsheetImporterTest extends PepperImporterTest{
 		xlsxFormat.setFormatName("xlsx");
 		xlsxFormat.setFormatVersion("2007+");
 		supportedFormatsCheck.add(xlsxFormat);
+		FormatDesc csvFormat= new FormatDesc();
+		csvFormat.setFormatName("csv");
+		csvFormat.setFormatVersion("1.0");
+		supportedFormatsCheck.add(csvFormat);
+		FormatDesc tsvFormat= new FormatDesc();
+		tsvFormat.setFormatName("tsv");
+		tsvFormat.setFormatVersion("1.0");
+		supportedFormatsCheck.add(tsvFormat);
 	}
 //
 //	/**
@@ -107,5 +133,52 @@ public class SpreadsheetImporterTest extends PepperImporterTest{
 //		}
 //	}
 
+	/**
+	 * the parallel discovery finds workbooks by their signature and skips lock files, hidden files and
+	 * files which only have the ending of a workbook
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testDiscoverCorpusStructure() throws IOException {
+		File corpusDir = new File(System.getProperty("java.io.tmpdir"), "spreadsheetDiscovery" + System.currentTimeMillis());
+		try {
+			writeWorkbook(new File(corpusDir, "sub/first.xlsx"));
+			writeWorkbook(new File(corpusDir, "sub/deeper/second"));
+			FileUtils.write(new File(corpusDir, "sub/~$first.xlsx"), "lock", StandardCharsets.UTF_8);
+			FileUtils.write(new File(corpusDir, "sub/.hidden.xlsx"), "hidden", StandardCharsets.UTF_8);
+			FileUtils.write(new File(corpusDir, "broken.xlsx"), "no workbook", StandardCharsets.UTF_8);
+			FileUtils.write(new File(corpusDir, "notes.txt"), "no workbook", StandardCharsets.UTF_8);
+			FileUtils.write(new File(corpusDir, "third.csv"), "tok\nThis\n", StandardCharsets.UTF_8);
+			
+			getFixture().getProperties().setPropertyValue(SpreadsheetImporterProperties.PROP_DISCOVERY_THREADS, 4);
+			getFixture().getCorpusDesc().setCorpusPath(URI.createFileURI(corpusDir.getAbsolutePath()));
+			SCorpusGraph corpusGraph = SaltFactory.createSCorpusGraph();
+			getFixture().importCorpusStructure(corpusGraph);
+			
+			// the documents are added in the order of their paths
+			List<String> documentIds = new ArrayList<>();
+			for (SDocument document : corpusGraph.getDocuments()) {
+				documentIds.add(document.getId());
+			}
+			String rootId = "salt:/" + corpusDir.getName();
+			assertEquals(3, documentIds.size());
+			assertEquals(rootId + "/sub/deeper/second", documentIds.get(0));
+			assertEquals(rootId + "/sub/first", documentIds.get(1));
+			assertEquals(rootId + "/third", documentIds.get(2));
+			assertEquals(3, corpusGraph.getCorpora().size());
+		} finally {
+			FileUtils.deleteQuietly(corpusDir);
+		}
+	}
+	
+	private static void writeWorkbook(File file) throws IOException {
+		file.getParentFile().mkdirs();
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+			workbook.createSheet("corpus").createRow(0).createCell(0).setCellValue("tok");
+			workbook.write(out);
+		}
+	}
+	
 	//TODO add further tests for any test cases you can think of and which are necessary
 }